@@ -0,0 +1,52 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.ChallengeApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Application context for the benchmarks: the full service and repository stack on a fresh embedded MongoServer,
+ * without the web server and without the per call debug logging. The backend is a benchmark parameter, "memory" or
+ * "h2"; "external" also works with -jvmArgsAppend -Dmongo.uri=..., but the data of the benchmark is then left in
+ * mongo.database.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * @param backend : mongo.backend of the context
+     * @param properties : additional properties in key=value form
+     * @return the started context, to be closed in the teardown of the benchmark
+     */
+    static ConfigurableApplicationContext start(String backend, String... properties) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(ChallengeApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.com.mindex=INFO", "mongo.backend=" + backend);
+        if ("h2".equals(backend)) {
+            builder.properties("mongo.h2.file=" + temporaryH2File());
+        }
+        return builder.properties(properties).run();
+    }
+
+    /**
+     * @return path of a new MVStore file in a temporary directory, both deleted when the benchmark JVM exits
+     */
+    static String temporaryH2File() {
+        try {
+            File directory = Files.createTempDirectory("benchmark").toFile();
+            directory.deleteOnExit();
+            File h2File = new File(directory, "employee_database.mv");
+            h2File.deleteOnExit();
+            return h2File.getPath();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Start of the application context up to the first employee read, per backend. The h2 file is seeded by a start in
+ * the trial setup, so that every measured start finds the data of a previous run and skips the bootstrap, while on
+ * memory every start seeds again. All starts share one JVM, so class loading is only paid by the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ColdStartBenchmark {
+
+    // John Lennon, the first employee of the seed file
+    private static final String EMPLOYEE_ID = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+
+    @Param({"memory", "h2"})
+    public String backend;
+
+    private String h2File;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        h2File = BenchmarkContext.temporaryH2File();
+        BenchmarkContext.start(backend, "mongo.h2.file=" + h2File).close();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Employee startAndRead() {
+        context = BenchmarkContext.start(backend, "mongo.h2.file=" + h2File);
+        return context.getBean(EmployeeService.class).read(EMPLOYEE_ID);
+    }
+}
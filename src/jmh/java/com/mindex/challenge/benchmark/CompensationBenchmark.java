@@ -0,0 +1,81 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.service.CompensationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creation and reads of compensations for a pool of employees which all have a compensation history, per backend
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompensationBenchmark {
+
+    private static final LocalDate FIRST_EFFECTIVE_DATE = LocalDate.of(2000, 1, 1);
+
+    @Param({"1000"})
+    public int employees;
+
+    @Param({"memory", "h2"})
+    public String backend;
+
+    private ConfigurableApplicationContext context;
+    private CompensationService compensationService;
+    private List<String> employeeIds;
+
+    // every created compensation takes effect on a later day than the previous ones of the same employee
+    private final AtomicInteger createdCompensations = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start(backend);
+        compensationService = context.getBean(CompensationService.class);
+
+        Hierarchies.insert(context, Hierarchies.Shape.STAR, employees);
+        employeeIds = Hierarchies.employeeIds(employees);
+        for (String employeeId : employeeIds) {
+            compensationService.create(compensation(employeeId, FIRST_EFFECTIVE_DATE));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Compensation create() {
+        int index = createdCompensations.getAndIncrement();
+        return compensationService.create(compensation(employeeIds.get(index % employees),
+                FIRST_EFFECTIVE_DATE.plusDays(1 + index / employees)));
+    }
+
+    @Benchmark
+    public Compensation read() {
+        return compensationService.read(employeeIds.get(ThreadLocalRandom.current().nextInt(employees)));
+    }
+
+    @Benchmark
+    public List<Compensation> readHistory() {
+        return compensationService.readHistory(employeeIds.get(ThreadLocalRandom.current().nextInt(employees)));
+    }
+
+    private static Compensation compensation(String employeeId, LocalDate effectiveDate) {
+        Compensation compensation = new Compensation();
+        compensation.setEmployeeId(employeeId);
+        compensation.setSalary(100000);
+        compensation.setEffectiveDate(effectiveDate);
+        return compensation;
+    }
+}
@@ -0,0 +1,114 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.service.EmployeeHierarchyService;
+import com.mindex.challenge.service.OrgGraphCacheService;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generated employee hierarchies of a given shape and size. Employee i has the employeeId employeeId(i); employee 0
+ * is the root.
+ */
+public final class Hierarchies {
+
+    private static final int BALANCED_FAN_OUT = 10;
+    private static final int INSERT_BATCH_SIZE = 10000;
+
+    public enum Shape {
+        // every employee is the only direct report of the previous one
+        CHAIN,
+        // every employee is a direct report of the root
+        STAR,
+        // every manager has BALANCED_FAN_OUT direct reports
+        BALANCED
+    }
+
+    private Hierarchies() {
+    }
+
+    static String employeeId(int index) {
+        return "benchmark-" + index;
+    }
+
+    static List<String> employeeIds(int size) {
+        List<String> employeeIds = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            employeeIds.add(employeeId(i));
+        }
+        return employeeIds;
+    }
+
+    /**
+     * @param nested : whether directReports hold the complete Employee objects, as in a ReportingStructure, instead of
+     *               Employee objects which only contain the employee ID, as in the repository
+     * @return the employees of the hierarchy, indexed like their employeeId
+     */
+    static Employee[] generate(Shape shape, int size, boolean nested) {
+        Employee[] employees = new Employee[size];
+        for (int i = 0; i < size; i++) {
+            Employee employee = new Employee();
+            employee.setEmployeeId(employeeId(i));
+            employee.setFirstName("First" + i);
+            employee.setLastName("Last" + i);
+            employee.setPosition(i == 0 ? "Chief Executive Officer" : "Developer");
+            employee.setDepartment("Engineering");
+            employee.setVersion(0L);
+            employees[i] = employee;
+
+            if (i > 0) {
+                Employee manager = employees[parent(shape, i)];
+                if (manager.getDirectReports() == null) {
+                    manager.setDirectReports(new ArrayList<>());
+                }
+
+                Employee directReport = employee;
+                if (!nested) {
+                    directReport = new Employee();
+                    directReport.setEmployeeId(employee.getEmployeeId());
+                }
+                manager.getDirectReports().add(directReport);
+            }
+        }
+
+        return employees;
+    }
+
+    /**
+     * method to store a generated hierarchy through bulk inserts, then to derive the hierarchy collection and the
+     * managerIds from it the same way a bulk import does
+     * @return employeeId of the root of the hierarchy
+     */
+    static String insert(ApplicationContext context, Shape shape, int size) {
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        Employee[] employees = generate(shape, size, false);
+
+        for (int i = 0; i < size; i += INSERT_BATCH_SIZE) {
+            BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Employee.class);
+            bulkOperations.insert(Arrays.asList(employees).subList(i, Math.min(i + INSERT_BATCH_SIZE, size)));
+            bulkOperations.execute();
+        }
+
+        context.getBean(EmployeeHierarchyService.class).rebuild();
+        context.getBean(OrgGraphCacheService.class).invalidate();
+
+        return employeeId(0);
+    }
+
+    private static int parent(Shape shape, int index) {
+        switch (shape) {
+            case CHAIN:
+                return index - 1;
+            case STAR:
+                return 0;
+            case BALANCED:
+            default:
+                return (index - 1) / BALANCED_FAN_OUT;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.EmployeeService;
+import com.mindex.challenge.service.TraversalMode;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every traversal over chains, stars and balanced trees of 1k to 1M employees. The employee cache is disabled so that
+ * the repository traversals pay for their Mongo round trips on every invocation; the CACHED traversal still keeps its
+ * in-memory org graph across invocations. GRAPH_LOOKUP is left out: the embedded MongoServer has no $graphLookup stage,
+ * so the service would fall back to BATCHED and the results would be mislabelled. It can be measured against a MongoDB
+ * deployment with -p backend=external -p traversalMode=GRAPH_LOOKUP -jvmArgsAppend -Dmongo.uri=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ReportingStructureBenchmark {
+
+    @Param({"CHAIN", "STAR", "BALANCED"})
+    public Hierarchies.Shape shape;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"SEQUENTIAL", "BATCHED", "CACHED", "FORK_JOIN"})
+    public TraversalMode traversalMode;
+
+    @Param({"memory", "h2"})
+    public String backend;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private String rootEmployeeId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start(backend, "cache.employee.maximum-size=0");
+        employeeService = context.getBean(EmployeeService.class);
+        rootEmployeeId = Hierarchies.insert(context, shape, size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ReportingStructure getEmployeeReportingStructure() {
+        return employeeService.getEmployeeReportingStructure(rootEmployeeId, traversalMode);
+    }
+}
@@ -0,0 +1,44 @@
+package com.mindex.challenge.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.ReportingStructure;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of fully filled out ReportingStructure objects, configured like the ObjectMapper of the
+ * application. Chains are left out, their nesting depth exceeds the stack of the serializer long before 1M employees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReportingStructureSerializationBenchmark {
+
+    @Param({"STAR", "BALANCED"})
+    public Hierarchies.Shape shape;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private ReportingStructure reportingStructure;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        reportingStructure = new ReportingStructure(Hierarchies.generate(shape, size, true)[0]);
+        reportingStructure.setNumberOfReports(size - 1);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(reportingStructure);
+    }
+}
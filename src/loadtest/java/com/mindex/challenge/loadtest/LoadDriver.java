@@ -0,0 +1,330 @@
+package com.mindex.challenge.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.ChallengeApplication;
+import com.mindex.challenge.data.OrgGeneratorSettings;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.StreamUtils;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load driver: every client repeatedly picks an operation according to the mix and an employee of the
+ * generated organisation, and sends the next request as soon as the previous one completed. Without --url the
+ * application is started in this JVM on a random localhost port and bootstrapped with the organisation; with --url a
+ * running instance is driven, which must hold the organisation generated from the same settings (e.g. through
+ * POST /admin/generate). Options the driver does not know are passed on to the in-process application, e.g.
+ * --virtual-threads.enabled=true or --employee.reporting-structure.traversal=FORK_JOIN.
+ *
+ * Reports the throughput and latency percentiles per operation and the thread counts of the server; with
+ * --histograms=directory the full latency distribution of every operation is written in HdrHistogram format.
+ */
+public class LoadDriver {
+
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 60000;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private static final Map<String, String> DEFAULT_OPTIONS = new LinkedHashMap<>();
+    static {
+        DEFAULT_OPTIONS.put("url", "");
+        DEFAULT_OPTIONS.put("concurrency", "100");
+        DEFAULT_OPTIONS.put("warmup", "5");
+        DEFAULT_OPTIONS.put("duration", "30");
+        DEFAULT_OPTIONS.put("mix", "read:50,compensation:15,reporting:15,update:10,compensate:10");
+        DEFAULT_OPTIONS.put("histograms", "");
+        DEFAULT_OPTIONS.put("size", "10000");
+        DEFAULT_OPTIONS.put("fan-out", "5");
+        DEFAULT_OPTIONS.put("fan-out-distribution", OrgGeneratorSettings.POWER_LAW_DISTRIBUTION);
+        DEFAULT_OPTIONS.put("max-depth", "0");
+        DEFAULT_OPTIONS.put("cycles", "0");
+        DEFAULT_OPTIONS.put("seed", "42");
+    }
+
+    private final String baseUrl;
+    private final OrgGeneratorSettings settings;
+
+    // operations and their cumulative weights in the mix
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private long measuredNanos;
+
+    LoadDriver(String baseUrl, OrgGeneratorSettings settings, Map<Operation, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.settings = settings;
+        this.operations = mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+
+        int totalWeight = 0;
+        for (int i = 0; i < operations.length; i++) {
+            totalWeight += mix.get(operations[i]);
+            cumulativeWeights[i] = totalWeight;
+            latencies.put(operations[i], new Recorder(3));
+            errors.put(operations[i], new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULT_OPTIONS);
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value instead of " + arg);
+            }
+            String name = arg.substring(2, separator);
+            if (options.containsKey(name)) {
+                options.put(name, arg.substring(separator + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+
+        // one persistent connection per client instead of the default of 5
+        System.setProperty("http.maxConnections", String.valueOf(concurrency));
+
+        OrgGeneratorSettings settings = new OrgGeneratorSettings();
+        settings.setSize(Integer.parseInt(options.get("size")));
+        settings.setFanOut(Integer.parseInt(options.get("fan-out")));
+        settings.setFanOutDistribution(options.get("fan-out-distribution"));
+        settings.setMaxDepth(Integer.parseInt(options.get("max-depth")));
+        settings.setCycles(Integer.parseInt(options.get("cycles")));
+        settings.setSeed(Long.parseLong(options.get("seed")));
+
+        String url = options.get("url");
+        ConfigurableApplicationContext context = null;
+        if (url.isEmpty()) {
+            applicationArgs.add("--server.port=0");
+            applicationArgs.add("--logging.level.com.mindex=INFO");
+            applicationArgs.add("--bootstrap.generate.size=" + settings.getSize());
+            applicationArgs.add("--bootstrap.generate.fan-out=" + settings.getFanOut());
+            applicationArgs.add("--bootstrap.generate.fan-out-distribution=" + settings.getFanOutDistribution());
+            applicationArgs.add("--bootstrap.generate.max-depth=" + settings.getMaxDepth());
+            applicationArgs.add("--bootstrap.generate.cycles=" + settings.getCycles());
+            applicationArgs.add("--bootstrap.generate.seed=" + settings.getSeed());
+
+            context = SpringApplication.run(ChallengeApplication.class, applicationArgs.toArray(new String[0]));
+            url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+
+        try {
+            LoadDriver driver = new LoadDriver(url, settings, parseMix(options.get("mix")));
+            driver.run(concurrency, Integer.parseInt(options.get("warmup")),
+                    Integer.parseInt(options.get("duration")));
+            driver.report(System.out, concurrency, context != null);
+
+            if (!options.get("histograms").isEmpty()) {
+                driver.writeHistograms(new File(options.get("histograms")));
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * @param mix : comma separated operation:weight pairs, e.g. read:80,update:20
+     */
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] operationWeight = entry.trim().split(":");
+            if (operationWeight.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight instead of " + entry);
+            }
+            int weight = Integer.parseInt(operationWeight[1]);
+            if (weight > 0) {
+                weights.put(Operation.forName(operationWeight[0]), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix contains no operation");
+        }
+        return weights;
+    }
+
+    private void run(int concurrency, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        long measurementStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measurementStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            clients.execute(() -> {
+                while (System.nanoTime() < end) {
+                    execute(pickOperation());
+                }
+            });
+        }
+
+        // everything recorded during the warm-up is discarded
+        TimeUnit.NANOSECONDS.sleep(measurementStart - System.nanoTime());
+        for (Operation operation : operations) {
+            latencies.get(operation).reset();
+            errors.get(operation).reset();
+        }
+
+        clients.shutdown();
+        if (!clients.awaitTermination(durationSeconds + READ_TIMEOUT_MILLIS / 1000, TimeUnit.SECONDS)) {
+            clients.shutdownNow();
+        }
+        measuredNanos = System.nanoTime() - measurementStart;
+    }
+
+    private Operation pickOperation() {
+        int weight = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (cumulativeWeights[i] <= weight) {
+            i++;
+        }
+        return operations[i];
+    }
+
+    private void execute(Operation operation) {
+        String employeeId = settings.employeeId(ThreadLocalRandom.current().nextInt(settings.getSize()));
+
+        long start = System.nanoTime();
+        boolean successful;
+        try {
+            successful = operation.execute(this, employeeId);
+        } catch (IOException e) {
+            successful = false;
+        }
+        latencies.get(operation).recordValue(System.nanoTime() - start);
+
+        if (!successful) {
+            errors.get(operation).increment();
+        }
+    }
+
+    Response send(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream outputStream = connection.getOutputStream()) {
+                outputStream.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        int status = connection.getResponseCode();
+
+        // the body is read completely, so that the connection is kept alive for the next request
+        InputStream inputStream = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (inputStream == null) {
+            return new Response(status, "");
+        }
+        try (InputStream responseStream = inputStream) {
+            return new Response(status, StreamUtils.copyToString(responseStream, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void report(PrintStream out, int concurrency, boolean inProcess) {
+        out.printf("%nLoad test against %s: %d clients for %.1f s%n%n", baseUrl, concurrency,
+                measuredNanos / 1e9);
+        out.printf("%-14s %10s %8s %10s %9s %9s %9s %9s %9s%n", "operation", "requests", "errors", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        for (Operation operation : operations) {
+            Histogram histogram = latencies.get(operation).getIntervalHistogram();
+            long operationErrors = errors.get(operation).sum();
+            printRow(out, operation.getName(), histogram, operationErrors);
+
+            // kept for writeHistograms, as the recorder hands out every interval only once
+            histograms.put(operation, histogram);
+
+            total.add(histogram);
+            totalErrors += operationErrors;
+        }
+        printRow(out, "total", total, totalErrors);
+
+        try {
+            out.printf("%nServer threads: [%.0f] live, [%.0f] peak%s%n", readMetric("jvm.threads.live"),
+                    readMetric("jvm.threads.peak"),
+                    inProcess ? ", including the " + concurrency + " client threads of the driver" : "");
+        } catch (IOException e) {
+            out.printf("%nServer thread counts unavailable: %s%n", e.getMessage());
+        }
+    }
+
+    private void printRow(PrintStream out, String name, Histogram histogram, long errorCount) {
+        out.printf("%-14s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(),
+                errorCount, histogram.getTotalCount() * 1e9 / measuredNanos,
+                histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                histogram.getMaxValue() / NANOS_PER_MILLI);
+    }
+
+    private void writeHistograms(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        for (Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+            try (PrintStream out = new PrintStream(new File(directory, entry.getKey().getName() + ".hgrm"),
+                    StandardCharsets.UTF_8.name())) {
+                // values in milliseconds
+                entry.getValue().outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+    }
+
+    private double readMetric(String name) throws IOException {
+        Response response = send("GET", "/actuator/metrics/" + name, null);
+        if (!response.isSuccessful()) {
+            throw new IOException("Metric " + name + " answered with status " + response.getStatus());
+        }
+        JsonNode measurements = OBJECT_MAPPER.readTree(response.getBody()).path("measurements");
+        return measurements.path(0).path("value").asDouble();
+    }
+
+    static class Response {
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        String getBody() {
+            return body;
+        }
+
+        boolean isSuccessful() {
+            return status < 400;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.mindex.challenge.loadtest;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mindex.challenge.data.Compensation;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Requests replayed by the load driver, each against one randomly chosen employee of the generated organisation
+ */
+enum Operation {
+    READ("read") {
+        @Override
+        boolean execute(LoadDriver driver, String employeeId) throws IOException {
+            return driver.send("GET", "/employee/" + employeeId, null).isSuccessful();
+        }
+    },
+    COMPENSATION("compensation") {
+        @Override
+        boolean execute(LoadDriver driver, String employeeId) throws IOException {
+            return driver.send("GET", "/compensation/" + employeeId, null).isSuccessful();
+        }
+    },
+    REPORTING("reporting") {
+        @Override
+        boolean execute(LoadDriver driver, String employeeId) throws IOException {
+            return driver.send("GET", "/employee/" + employeeId + "/reporting-structure", null).isSuccessful();
+        }
+    },
+    UPDATE("update") {
+        // read-modify-write of the position, keeping the directReports of the employee
+        @Override
+        boolean execute(LoadDriver driver, String employeeId) throws IOException {
+            LoadDriver.Response response = driver.send("GET", "/employee/" + employeeId, null);
+            if (!response.isSuccessful()) {
+                return false;
+            }
+
+            ObjectNode employee = (ObjectNode) LoadDriver.OBJECT_MAPPER.readTree(response.getBody());
+            employee.put("position", "Position " + UPDATES.incrementAndGet());
+            return driver.send("PUT", "/employee/" + employeeId,
+                    LoadDriver.OBJECT_MAPPER.writeValueAsString(employee)).isSuccessful();
+        }
+    },
+    COMPENSATE("compensate") {
+        // every compensation takes effect on a different day, so that none conflicts with the history
+        @Override
+        boolean execute(LoadDriver driver, String employeeId) throws IOException {
+            ObjectNode compensation = LoadDriver.OBJECT_MAPPER.createObjectNode();
+            compensation.put("salary", 100000);
+            compensation.put("effectiveDate", FIRST_EFFECTIVE_DATE.plusDays(COMPENSATIONS.incrementAndGet())
+                    .format(DATE_FORMATTER));
+            return driver.send("POST", "/compensation/" + employeeId,
+                    LoadDriver.OBJECT_MAPPER.writeValueAsString(compensation)).isSuccessful();
+        }
+    };
+
+    private static final LocalDate FIRST_EFFECTIVE_DATE = LocalDate.of(2030, 1, 1);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(Compensation.DATE_PATTERN);
+    private static final AtomicInteger UPDATES = new AtomicInteger();
+    private static final AtomicInteger COMPENSATIONS = new AtomicInteger();
+
+    private final String name;
+
+    Operation(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return whether every request of the operation succeeded
+     */
+    abstract boolean execute(LoadDriver driver, String employeeId) throws IOException;
+
+    static Operation forName(String name) {
+        for (Operation operation : values()) {
+            if (operation.name.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + name);
+    }
+}
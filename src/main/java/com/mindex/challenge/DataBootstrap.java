@@ -1,39 +1,152 @@
 package com.mindex.challenge;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mindex.challenge.dao.EmployeeRepository;
-import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeImportResult;
+import com.mindex.challenge.data.OrgGeneratorSettings;
+import com.mindex.challenge.service.EmployeeImportService;
+import com.mindex.challenge.service.OrgGeneratorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
 
+/**
+ * Seeds an empty database from a JSON array, NDJSON or gzip compressed seed file. The seed is streamed and inserted in
+ * batches, either during startup or, with bootstrap.async=true, on a background thread once the application is ready.
+ * With bootstrap.generate.size set, a generated organisation is loaded instead of the seed file. A failed background
+ * bootstrap is recorded, as there is no startup left for it to abort.
+ */
 @Component
 public class DataBootstrap {
-    private static final String DATASTORE_LOCATION = "/static/employee_database.json";
+    private static final Logger LOG = LoggerFactory.getLogger(DataBootstrap.class);
+
+    @Autowired
+    private EmployeeImportService employeeImportService;
 
     @Autowired
     private EmployeeRepository employeeRepository;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private OrgGeneratorService orgGeneratorService;
+
+    @Value("${bootstrap.location:classpath:/static/employee_database.json}")
+    private Resource datastoreLocation;
+
+    @Value("${bootstrap.generate.size:0}")
+    private int generateSize;
+
+    @Value("${bootstrap.generate.fan-out:5}")
+    private int generateFanOut;
+
+    @Value("${bootstrap.generate.fan-out-distribution:constant}")
+    private String generateFanOutDistribution;
+
+    @Value("${bootstrap.generate.max-depth:0}")
+    private int generateMaxDepth;
+
+    @Value("${bootstrap.generate.cycles:0}")
+    private int generateCycles;
+
+    @Value("${bootstrap.generate.compensations:true}")
+    private boolean generateCompensations;
+
+    @Value("${bootstrap.generate.seed:42}")
+    private long generateSeed;
+
+    @Value("${bootstrap.async:false}")
+    private boolean async;
+
+    private volatile boolean ready;
+    private volatile EmployeeImportResult result;
+    private volatile String failure;
 
     @PostConstruct
     public void init() {
-        InputStream inputStream = this.getClass().getResourceAsStream(DATASTORE_LOCATION);
+        if (!async) {
+            bootstrap();
+        }
+    }
 
-        Employee[] employees = null;
+    @EventListener(ApplicationReadyEvent.class)
+    public void initAsync() {
+        if (async) {
+            Thread bootstrapThread = new Thread(this::bootstrapInBackground, "data-bootstrap");
+            bootstrapThread.setDaemon(true);
+            bootstrapThread.start();
+        }
+    }
 
+    public boolean isReady() {
+        return ready;
+    }
+
+    public EmployeeImportResult getResult() {
+        return result;
+    }
+
+    /**
+     * @return the error which ended a background bootstrap, null while it is running or once it succeeded
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    private void bootstrapInBackground() {
         try {
-            employees = objectMapper.readValue(inputStream, Employee[].class);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            bootstrap();
+        } catch (RuntimeException e) {
+            LOG.error("Bootstrapping failed", e);
+            failure = e.getMessage() != null ? e.getMessage() : e.toString();
         }
+    }
 
-        for (Employee employee : employees) {
-            employeeRepository.insert(employee);
+    private void bootstrap() {
+        // persistent backends keep the data of previous runs
+        if (employeeRepository.count() > 0) {
+            LOG.info("Skipping bootstrap, the database already contains employees");
+            ready = true;
+            return;
         }
+
+        long start = System.currentTimeMillis();
+
+        if (generateSize > 0) {
+            LOG.debug("Bootstrapping a generated organisation of [{}] employees", generateSize);
+            result = orgGeneratorService.generate(getGeneratorSettings());
+        } else {
+            LOG.debug("Bootstrapping data from [{}]", datastoreLocation);
+            try (InputStream inputStream = datastoreLocation.getInputStream()) {
+                result = employeeImportService.importEmployees(inputStream, true);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        if (result.getFailed() > 0) {
+            throw new RuntimeException("Bootstrapping failed for " + result.getFailed() + " employees");
+        }
+
+        ready = true;
+        LOG.info("Bootstrapped [{}] employees in [{}] ms", result.getInserted(), System.currentTimeMillis() - start);
+    }
+
+    private OrgGeneratorSettings getGeneratorSettings() {
+        OrgGeneratorSettings settings = new OrgGeneratorSettings();
+        settings.setSize(generateSize);
+        settings.setFanOut(generateFanOut);
+        settings.setFanOutDistribution(generateFanOutDistribution);
+        settings.setMaxDepth(generateMaxDepth);
+        settings.setCycles(generateCycles);
+        settings.setCompensations(generateCompensations);
+        settings.setSeed(generateSeed);
+        return settings;
     }
 }
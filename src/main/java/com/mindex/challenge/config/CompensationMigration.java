@@ -0,0 +1,79 @@
+package com.mindex.challenge.config;
+
+import com.mindex.challenge.data.Compensation;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Moves compensations stored before the compensation history existed (keyed by employeeId, with a MM/DD/YYYY string
+ * effectiveDate) into history entries. Runs before the indexes are created, since several of the old documents would
+ * violate the unique (employeeId, effectiveDate) index.
+ */
+class CompensationMigration {
+    private static final Logger LOG = LoggerFactory.getLogger(CompensationMigration.class);
+
+    // effectiveDate of an old compensation whose date cannot be read: in effect since before any dated entry, and
+    // unique per employee since every employee had a single old compensation
+    static final LocalDate UNKNOWN_EFFECTIVE_DATE = LocalDate.ofEpochDay(0);
+
+    private CompensationMigration() {
+    }
+
+    static void migrate(MongoTemplate mongoTemplate) {
+        String collectionName = mongoTemplate.getCollectionName(Compensation.class);
+
+        // old documents carry the employeeId as their _id only
+        List<Document> legacyCompensations = mongoTemplate.find(new Query(where("employeeId").exists(false)),
+                Document.class, collectionName);
+        if (legacyCompensations.isEmpty()) {
+            return;
+        }
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(Compensation.DATE_PATTERN);
+        for (Document legacyCompensation : legacyCompensations) {
+            Object employeeId = legacyCompensation.get("_id");
+            Object salary = legacyCompensation.get("salary");
+
+            Compensation compensation = new Compensation();
+            compensation.setEmployeeId(employeeId.toString());
+            compensation.setSalary(salary instanceof Number ? ((Number) salary).intValue() : 0);
+            compensation.setEffectiveDate(parseEffectiveDate(employeeId, legacyCompensation.get("effectiveDate"),
+                    formatter));
+
+            // an entry inserted by an interrupted earlier run is kept, only the old document is left to remove
+            try {
+                mongoTemplate.insert(compensation);
+            } catch (DuplicateKeyException e) {
+                LOG.debug("Compensation of employee [{}] was already migrated", employeeId);
+            }
+            mongoTemplate.remove(new Query(where("_id").is(employeeId)), collectionName);
+        }
+
+        LOG.info("Migrated [{}] compensations into the compensation history", legacyCompensations.size());
+    }
+
+    private static LocalDate parseEffectiveDate(Object employeeId, Object effectiveDate, DateTimeFormatter formatter) {
+        if (effectiveDate instanceof String) {
+            try {
+                return LocalDate.parse(((String) effectiveDate).trim(), formatter);
+            } catch (DateTimeParseException e) {
+                // fall through to the fallback date below
+            }
+        }
+
+        LOG.error("Compensation of employee [{}] has an invalid effectiveDate [{}], migrated as effective from [{}]",
+                employeeId, effectiveDate, UNKNOWN_EFFECTIVE_DATE);
+        return UNKNOWN_EFFECTIVE_DATE;
+    }
+}
@@ -2,41 +2,103 @@ package com.mindex.challenge.config;
 
 import com.mindex.challenge.dao.CompensationRepository;
 import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Change;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeHierarchy;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import de.bwaldvogel.mongo.MongoBackend;
 import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.h2.H2Backend;
 import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.MongoDbFactory;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.SimpleMongoClientDbFactory;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.data.util.ClassTypeInformation;
 
+/**
+ * Storage is selected with mongo.backend: "memory" (default) and "h2" start an embedded MongoServer, the latter
+ * persisting to the MVStore file mongo.h2.file; "external" connects to the MongoDB deployment at mongo.uri instead.
+ */
 @EnableMongoRepositories(basePackageClasses = {EmployeeRepository.class, CompensationRepository.class})
 @Configuration
 public class MongoConfig{
+    private static final String H2_BACKEND = "h2";
+    private static final String EXTERNAL_BACKEND = "external";
+
+    // entities whose @Indexed / @CompoundIndex declarations are created at startup
+    private static final Class<?>[] INDEXED_ENTITIES = {Employee.class, Compensation.class, EmployeeHierarchy.class,
+            Change.class};
+
+    @Value("${mongo.backend:memory}")
+    private String backend;
+
+    @Value("${mongo.h2.file:employee_database.mv}")
+    private String h2File;
+
+    @Value("${mongo.uri:mongodb://localhost:27017}")
+    private String uri;
+
+    @Value("${mongo.database:test}")
+    private String database;
+
     @Bean
     public MongoTemplate mongoTemplate(MongoClient mongoClient) {
-        return new MongoTemplate(mongoDbFactory(mongoClient));
+        MongoTemplate mongoTemplate = new MongoTemplate(mongoDbFactory(mongoClient));
+        CompensationMigration.migrate(mongoTemplate);
+        ensureIndexes(mongoTemplate);
+        return mongoTemplate;
     }
 
     @Bean
     public MongoDbFactory mongoDbFactory(MongoClient mongoClient) {
-        return new SimpleMongoClientDbFactory(mongoClient, "test");
+        return new SimpleMongoClientDbFactory(mongoClient, database);
     }
 
     @Bean(destroyMethod="shutdown")
+    @ConditionalOnExpression("'${mongo.backend:memory}' != '" + EXTERNAL_BACKEND + "'")
     public MongoServer mongoServer() {
-        MongoServer mongoServer = new MongoServer(new MemoryBackend());
+        MongoBackend mongoBackend = H2_BACKEND.equals(backend) ? new H2Backend(h2File) : new MemoryBackend();
+        MongoServer mongoServer = new MongoServer(mongoBackend);
         mongoServer.bind();
         return mongoServer;
     }
 
     @Bean(destroyMethod="close")
-    public MongoClient mongoClient() {
-        return MongoClients.create("mongodb:/" + mongoServer().getLocalAddress());
+    public MongoClient mongoClient(ObjectProvider<MongoServer> mongoServer,
+                                   ObjectProvider<CommandListener> commandListeners) {
+        String connectionString = EXTERNAL_BACKEND.equals(backend) ? uri
+                : "mongodb:/" + mongoServer.getObject().getLocalAddress();
+
+        MongoClientSettings.Builder settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(connectionString));
+        commandListeners.orderedStream().forEach(settings::addCommandListener);
+        return MongoClients.create(settings.build());
     }
-}
 
+    private static void ensureIndexes(MongoTemplate mongoTemplate) {
+        MongoMappingContext mappingContext = (MongoMappingContext) mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mappingContext);
 
+        for (Class<?> entityClass : INDEXED_ENTITIES) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(entityClass);
+            for (IndexDefinition indexDefinition : indexResolver.resolveIndexFor(ClassTypeInformation.from(entityClass))) {
+                indexOperations.ensureIndex(indexDefinition);
+            }
+        }
+    }
+}
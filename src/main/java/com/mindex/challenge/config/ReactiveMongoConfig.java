@@ -0,0 +1,58 @@
+package com.mindex.challenge.config;
+
+import com.mindex.challenge.dao.ReactiveCompensationRepository;
+import com.mindex.challenge.dao.ReactiveEmployeeRepository;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+/**
+ * Non-blocking access to the same storage as MongoConfig, for the "reactive" profile. The mapping (and with it the
+ * indexes and migrations) is shared with the blocking MongoTemplate, which remains in use for the seed data import
+ * and for hierarchy maintenance.
+ */
+@EnableReactiveMongoRepositories(basePackageClasses = {ReactiveEmployeeRepository.class,
+        ReactiveCompensationRepository.class})
+@Configuration
+@Profile("reactive")
+public class ReactiveMongoConfig {
+    private static final String EXTERNAL_BACKEND = "external";
+
+    @Value("${mongo.backend:memory}")
+    private String backend;
+
+    @Value("${mongo.uri:mongodb://localhost:27017}")
+    private String uri;
+
+    @Value("${mongo.database:test}")
+    private String database;
+
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory,
+                                                       MongoTemplate mongoTemplate) {
+        return new ReactiveMongoTemplate(reactiveMongoDatabaseFactory, mongoTemplate.getConverter());
+    }
+
+    @Bean
+    public ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory(MongoClient reactiveMongoClient) {
+        return new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient, database);
+    }
+
+    @Bean(destroyMethod="close")
+    public MongoClient reactiveMongoClient(ObjectProvider<MongoServer> mongoServer) {
+        if (EXTERNAL_BACKEND.equals(backend)) {
+            return MongoClients.create(uri);
+        }
+        return MongoClients.create("mongodb:/" + mongoServer.getObject().getLocalAddress());
+    }
+}
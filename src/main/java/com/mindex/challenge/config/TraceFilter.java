@@ -0,0 +1,43 @@
+package com.mindex.challenge.config;
+
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Assigns every request a trace id, taken from the X-Trace-Id request header when the caller provides one, which the
+ * spans logged by MetricsAspect refer to. The trace id is returned in the X-Trace-Id response header, so that a slow
+ * response can be matched with the spans of its service and repository calls.
+ */
+@Component
+@ConditionalOnProperty(name = "tracing.enabled", havingValue = "true")
+public class TraceFilter extends OncePerRequestFilter {
+    public static final String TRACE_ID = "traceId";
+    private static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String traceId = request.getHeader(TRACE_ID_HEADER);
+        if (StringUtils.isEmpty(traceId)) {
+            traceId = UUID.randomUUID().toString().replace("-", "");
+        }
+
+        MDC.put(TRACE_ID, traceId);
+        response.setHeader(TRACE_ID_HEADER, traceId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(TRACE_ID);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.mindex.challenge.controller;
+
+import com.mindex.challenge.data.CacheStatistics;
+import com.mindex.challenge.data.EmployeeImportResult;
+import com.mindex.challenge.data.OrgGeneratorSettings;
+import com.mindex.challenge.service.AdminService;
+import com.mindex.challenge.service.OrgGeneratorService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+public class AdminController {
+    private static final Logger LOG = LoggerFactory.getLogger(AdminController.class);
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private OrgGeneratorService orgGeneratorService;
+
+    @GetMapping("/admin/indexes")
+    public Map<String, List<Document>> getIndexStatistics() {
+        LOG.debug("Received index statistics request");
+
+        return adminService.getIndexStatistics();
+    }
+
+    @GetMapping("/admin/caches")
+    public Map<String, CacheStatistics> getCacheStatistics() {
+        LOG.debug("Received cache statistics request");
+
+        return adminService.getCacheStatistics();
+    }
+
+    @PostMapping("/admin/generate")
+    public EmployeeImportResult generate(@RequestBody OrgGeneratorSettings settings) {
+        LOG.debug("Received org generation request for [{}] employees from seed [{}]", settings.getSize(),
+                settings.getSeed());
+
+        return orgGeneratorService.generate(settings);
+    }
+}
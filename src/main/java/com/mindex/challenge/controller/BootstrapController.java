@@ -0,0 +1,35 @@
+package com.mindex.challenge.controller;
+
+import com.mindex.challenge.DataBootstrap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+
+@RestController
+public class BootstrapController {
+
+    @Autowired
+    private DataBootstrap dataBootstrap;
+
+    /**
+     * Readiness of the seed data: 200 with the import result once bootstrapped, 503 while it is still loading and 500
+     * with the error of the background bootstrap, as {"failure": "..."}, once it failed
+     */
+    @GetMapping("/bootstrap")
+    public ResponseEntity<?> status() {
+        if (dataBootstrap.getFailure() != null) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Collections.singletonMap("failure", dataBootstrap.getFailure()));
+        }
+
+        if (!dataBootstrap.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        return ResponseEntity.ok(dataBootstrap.getResult());
+    }
+}
@@ -0,0 +1,58 @@
+package com.mindex.challenge.controller;
+
+import com.mindex.challenge.data.ChangeBatch;
+import com.mindex.challenge.service.ChangeLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@Profile("!reactive")
+public class ChangeLogController {
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeLogController.class);
+    private static final long MAX_WAIT_SECONDS = 60;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    /**
+     * method to read the changes after a sequence; without changes the request is held open until the next change is
+     * appended or the wait ends, without occupying a request thread
+     * @param since : sequence of the last change the consumer has seen, 0 for the start of the log
+     * @param limit : maximum number of changes to return
+     * @param wait : seconds to wait for a change, 0 to answer at once
+     * @return the changes and the sequence to continue from
+     */
+    @GetMapping("/changes")
+    public DeferredResult<ChangeBatch> readChanges(@RequestParam(defaultValue = "0") long since,
+                                                   @RequestParam(defaultValue = "100") int limit,
+                                                   @RequestParam(defaultValue = "30") long wait) {
+        LOG.debug("Received change log request since [{}] waiting up to [{}] s", since, wait);
+
+        long waitSeconds = Math.max(0, Math.min(wait, MAX_WAIT_SECONDS));
+        DeferredResult<ChangeBatch> result = new DeferredResult<>(TimeUnit.SECONDS.toMillis(waitSeconds));
+
+        if (waitSeconds == 0) {
+            result.setResult(changeLogService.read(since, limit));
+            return result;
+        }
+
+        CompletableFuture<ChangeBatch> changes = changeLogService.poll(since, limit);
+        changes.thenAccept(result::setResult);
+
+        // an empty batch when the wait ends, which also stops waiting for the next change
+        result.onTimeout(() -> changes.complete(changeLogService.read(since, limit)));
+        // e.g. the client went away
+        result.onCompletion(() -> changes.cancel(false));
+
+        return result;
+    }
+}
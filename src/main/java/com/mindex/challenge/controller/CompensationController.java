@@ -1,19 +1,32 @@
 package com.mindex.challenge.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.BatchReadRequest;
+import com.mindex.challenge.data.BatchReadResult;
 import com.mindex.challenge.data.Compensation;
 import com.mindex.challenge.service.CompensationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @RestController
+@Profile("!reactive")
 public class CompensationController {
     private static final Logger LOG = LoggerFactory.getLogger(CompensationController.class);
 
     @Autowired
     private CompensationService compensationService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping("/compensation/{id}")
     public Compensation create(@PathVariable String id, @RequestBody Compensation compensation) {
         LOG.debug("Received compensation create request for employee with id [{}] and compensation [{}]", id,
@@ -24,9 +37,46 @@ public class CompensationController {
     }
 
     @GetMapping("/compensation/{id}")
-    public Compensation read(@PathVariable String id) {
-        LOG.debug("Received compensation read request for employee with id [{}]", id);
+    public Compensation read(@PathVariable String id,
+                             @RequestParam(required = false)
+                             @DateTimeFormat(pattern = Compensation.DATE_PATTERN) LocalDate asOf,
+                             WebRequest request) {
+        LOG.debug("Received compensation read request for employee with id [{}] as of [{}]", id, asOf);
+
+        Compensation compensation = asOf != null ? compensationService.read(id, asOf) : compensationService.read(id);
+
+        // answered with 304 and no body if the client already holds this version
+        if (request.checkNotModified(EntityTags.of(compensation))) {
+            return null;
+        }
+
+        return compensation;
+    }
+
+    /**
+     * method to read the current compensation of several employees with one request; mapped more specifically than
+     * the creation of a compensation for an employee with id "_batch"
+     * @param request : employeeIds to read and optionally the fields to return
+     * @return the current compensations in request order and the employeeIds without one
+     */
+    @PostMapping("/compensation/_batch")
+    public BatchReadResult<?> readAll(@RequestBody BatchReadRequest request) {
+        LOG.debug("Received compensation batch read request for employee ids [{}] and fields [{}]", request.getIds(),
+                request.getFields());
+
+        return EntityProjections.project(objectMapper, compensationService.readAll(request.getIds()),
+                Compensation.class, request.getFields(), "employeeId");
+    }
+
+    @GetMapping("/compensation/{id}/history")
+    public List<Compensation> readHistory(@PathVariable String id, WebRequest request) {
+        LOG.debug("Received compensation history request for employee with id [{}]", id);
+
+        List<Compensation> history = compensationService.readHistory(id);
+        if (request.checkNotModified(EntityTags.of(history))) {
+            return null;
+        }
 
-        return compensationService.read(id);
+        return history;
     }
 }
@@ -1,20 +1,51 @@
 package com.mindex.challenge.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.BatchReadRequest;
+import com.mindex.challenge.data.BatchReadResult;
+import com.mindex.challenge.data.CompensationSummary;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeImportResult;
 import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.CompensationService;
+import com.mindex.challenge.service.EmployeeImportService;
 import com.mindex.challenge.service.EmployeeService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 
 @RestController
+@Profile("!reactive")
 public class EmployeeController {
     private static final Logger LOG = LoggerFactory.getLogger(EmployeeController.class);
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private EmployeeImportService employeeImportService;
+
+    @Autowired
+    private CompensationService compensationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping("/employee")
     public Employee create(@RequestBody Employee employee) {
         LOG.debug("Received employee create request for [{}]", employee);
@@ -22,25 +53,194 @@ public class EmployeeController {
         return employeeService.create(employee);
     }
 
+    @PostMapping("/employee/bulk")
+    public EmployeeImportResult bulkCreate(InputStream inputStream,
+                                           @RequestParam(defaultValue = "true") boolean ordered) {
+        LOG.debug("Received employee bulk create request in [{}] mode", ordered ? "ordered" : "unordered");
+
+        return employeeImportService.importEmployees(inputStream, ordered);
+    }
+
+    @GetMapping("/employee")
+    public List<Employee> search(@RequestParam(required = false) String department,
+                                 @RequestParam(required = false) String lastName,
+                                 @RequestParam(required = false) String firstName) {
+        LOG.debug("Received employee search request for department [{}], lastName [{}] and firstName [{}]",
+                department, lastName, firstName);
+
+        return employeeService.search(department, lastName, firstName);
+    }
+
     @GetMapping("/employee/{id}")
-    public Employee read(@PathVariable String id) {
+    public Employee read(@PathVariable String id, WebRequest request) {
         LOG.debug("Received employee create request for id [{}]", id);
 
-        return employeeService.read(id);
+        Employee employee = employeeService.read(id);
+
+        // answered with 304 and no body if the client already holds this version
+        if (request.checkNotModified(EntityTags.of(employee))) {
+            return null;
+        }
+
+        return employee;
+    }
+
+    /**
+     * method to read several employees with one request instead of one request per employee
+     * @param request : employeeIds to read and optionally the fields to return
+     * @return the found employees in request order and the employeeIds without an employee
+     */
+    @PostMapping("/employee/_batch")
+    public BatchReadResult<?> readAll(@RequestBody BatchReadRequest request) {
+        LOG.debug("Received employee batch read request for ids [{}] and fields [{}]", request.getIds(),
+                request.getFields());
+
+        return EntityProjections.project(objectMapper, employeeService.readAll(request.getIds()), Employee.class,
+                request.getFields(), "employeeId");
     }
 
     @PutMapping("/employee/{id}")
-    public Employee update(@PathVariable String id, @RequestBody Employee employee) {
+    public ResponseEntity<Employee> update(@PathVariable String id, @RequestBody Employee employee,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                   String ifMatch) {
         LOG.debug("Received employee create request for id [{}] and employee [{}]", id, employee);
 
+        if (ifMatch != null) {
+            Employee currentEmployee = employeeService.read(id);
+            if (!EntityTags.matches(ifMatch, EntityTags.of(currentEmployee))) {
+                LOG.error("Employee [{}] was modified since [{}]", id, ifMatch);
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+
+            // the write only succeeds if the employee is still at the matched version
+            employee.setVersion(currentEmployee.getVersion());
+        }
+
         employee.setEmployeeId(id);
-        return employeeService.update(employee);
+        Employee updatedEmployee = employeeService.update(employee);
+
+        return ResponseEntity.ok().eTag(EntityTags.of(updatedEmployee)).body(updatedEmployee);
+    }
+
+    @PatchMapping("/employee/{id}")
+    public ResponseEntity<Employee> patch(@PathVariable String id, @RequestBody Map<String, Object> fields,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                  String ifMatch) {
+        LOG.debug("Received employee patch request for id [{}] and fields [{}]", id, fields);
+
+        Long expectedVersion = null;
+        if (ifMatch != null) {
+            Employee currentEmployee = employeeService.read(id);
+            if (!EntityTags.matches(ifMatch, EntityTags.of(currentEmployee))) {
+                LOG.error("Employee [{}] was modified since [{}]", id, ifMatch);
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+            expectedVersion = currentEmployee.getVersion();
+        }
+
+        Employee patchedEmployee = employeeService.patch(id, fields, expectedVersion);
+
+        return ResponseEntity.ok().eTag(EntityTags.of(patchedEmployee)).body(patchedEmployee);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public void handleConflict(OptimisticLockingFailureException e) {
+        LOG.error("Employee write conflict: {}", e.getMessage());
+    }
+
+    @GetMapping("/employee/{id}/management-chain")
+    public List<Employee> getManagementChain(@PathVariable String id) {
+        LOG.debug("Received employee management chain request for id [{}]", id);
+
+        return employeeService.getManagementChain(id);
+    }
+
+    @GetMapping("/employee/{id}/common-manager/{otherId}")
+    public Employee getCommonManager(@PathVariable String id, @PathVariable String otherId) {
+        LOG.debug("Received common manager request for ids [{}] and [{}]", id, otherId);
+
+        return employeeService.getCommonManager(id, otherId);
     }
 
     @GetMapping("/employee/{id}/reporting-structure")
-    public ReportingStructure getReportingStructure(@PathVariable String id) {
-        LOG.debug("Received employee reporting structure request for id [{}]", id);
+    public ReportingStructure getReportingStructure(@PathVariable String id,
+                                                    @RequestParam(required = false) Integer depth,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    WebRequest request) {
+        LOG.debug("Received employee reporting structure request for id [{}], depth [{}] and limit [{}]", id, depth,
+                limit);
+
+        // revalidated against the hierarchy version before anything is computed
+        if (request.checkNotModified(EntityTags.ofReportingStructure(id, employeeService.getHierarchyVersion()))) {
+            return null;
+        }
+
+        if (depth == null && limit == null) {
+            return employeeService.getEmployeeReportingStructure(id);
+        }
+
+        // employees left unexpanded carry their employeeId, which serves as the cursor for the next request
+        return employeeService.getEmployeeReportingStructure(id, depth != null ? depth : Integer.MAX_VALUE,
+                limit != null ? limit : Integer.MAX_VALUE);
+    }
+
+    @GetMapping("/employee/{id}/reporting-structure/count")
+    public ReportingStructure getReportCount(@PathVariable String id, WebRequest request) {
+        LOG.debug("Received employee report count request for id [{}]", id);
+
+        if (request.checkNotModified(EntityTags.ofReportingStructure(id, employeeService.getHierarchyVersion()))) {
+            return null;
+        }
+
+        return employeeService.getEmployeeReportCount(id);
+    }
+
+    @GetMapping("/employee/{id}/reporting-structure/compensation-summary")
+    public CompensationSummary getCompensationSummary(@PathVariable String id,
+                                                      @RequestParam(required = false) String groupBy) {
+        LOG.debug("Received compensation summary request for id [{}] grouped by [{}]", id, groupBy);
+
+        return compensationService.getCompensationSummary(id, groupBy);
+    }
+
+    @GetMapping("/employee/{id}/reporting-structure/stream")
+    public ResponseEntity<StreamingResponseBody> streamReportingStructure(@PathVariable String id,
+                                                                          @RequestParam(defaultValue = "nested") String format,
+                                                                          WebRequest request) {
+        LOG.debug("Received employee reporting structure stream request for id [{}] and format [{}]", id, format);
+
+        if (request.checkNotModified(EntityTags.ofReportingStructure(id, employeeService.getHierarchyVersion()))) {
+            return null;
+        }
+
+        boolean nested = !"ndjson".equals(format);
+
+        // fail with an error status before anything is streamed if the employee does not exist
+        employeeService.read(id);
+
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            if (nested) {
+                generator.writeStartObject();
+                generator.writeFieldName("employee");
+            }
+
+            int numberOfReports = employeeService.visitEmployeeReportingStructure(id,
+                    new ReportingStructureStreamWriter(objectMapper, generator, nested));
+
+            if (nested) {
+                generator.writeNumberField("numberOfReports", numberOfReports);
+                generator.writeEndObject();
+            }
+            generator.close();
+        };
 
-        return employeeService.getEmployeeReportingStructure(id);
+        return ResponseEntity.ok()
+                .contentType(nested ? MediaType.APPLICATION_JSON : APPLICATION_NDJSON)
+                .body(body);
     }
 }
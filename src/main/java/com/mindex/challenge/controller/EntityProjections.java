@@ -0,0 +1,59 @@
+package com.mindex.challenge.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mindex.challenge.data.BatchReadResult;
+
+import java.util.*;
+
+/**
+ * Field subsets of the API payloads, e.g. for batch reads which only need the names of the employees. The subset is
+ * taken from the JSON representation, so that the projected fields are named and formatted as in the full payload.
+ */
+final class EntityProjections {
+
+    private EntityProjections() {
+    }
+
+    /**
+     * @param result : batch read result with complete entities
+     * @param type : class of the entities
+     * @param fields : JSON properties to keep, or null to keep the entities as they are
+     * @param keyField : JSON property identifying the entity, which is always kept
+     * @return the result with the found entities reduced to the requested fields
+     */
+    static <T> BatchReadResult<?> project(ObjectMapper objectMapper, BatchReadResult<T> result, Class<T> type,
+                                          List<String> fields, String keyField) {
+        if (fields == null) {
+            return result;
+        }
+
+        Set<String> keptFields = new HashSet<>(fields);
+        keptFields.removeAll(propertyNames(objectMapper, type));
+        if (!keptFields.isEmpty()) {
+            throw new RuntimeException("Invalid " + type.getSimpleName() + " fields: " + keptFields);
+        }
+        keptFields.addAll(fields);
+        keptFields.add(keyField);
+
+        List<JsonNode> projected = new ArrayList<>(result.getFound().size());
+        for (T entity : result.getFound()) {
+            ObjectNode node = objectMapper.valueToTree(entity);
+            projected.add(node.retain(keptFields));
+        }
+
+        return new BatchReadResult<>(projected, result.getMissing());
+    }
+
+    private static Set<String> propertyNames(ObjectMapper objectMapper, Class<?> type) {
+        Set<String> names = new HashSet<>();
+        for (BeanPropertyDefinition property : objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(type)).findProperties()) {
+            names.add(property.getName());
+        }
+
+        return names;
+    }
+}
@@ -0,0 +1,98 @@
+package com.mindex.challenge.controller;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Strong ETags for the API payloads. Documents are tagged with a digest of their fields, computed without serializing
+ * the response; reporting structures with the hierarchy version they are computed from, so that they can be
+ * revalidated without being computed at all.
+ */
+final class EntityTags {
+
+    private static final char SEPARATOR = '\u0000';
+    private static final String NULL = "\u0001";
+
+    private EntityTags() {
+    }
+
+    static String of(Employee employee) {
+        StringBuilder fields = new StringBuilder();
+        appendEmployee(fields, employee);
+        return digest("employee", fields);
+    }
+
+    static String of(Compensation compensation) {
+        StringBuilder fields = new StringBuilder();
+        appendCompensation(fields, compensation);
+        return digest("compensation", fields);
+    }
+
+    static String of(List<Compensation> compensations) {
+        StringBuilder fields = new StringBuilder();
+        for (Compensation compensation : compensations) {
+            appendCompensation(fields, compensation);
+        }
+        return digest("compensations", fields);
+    }
+
+    static String ofReportingStructure(String id, long hierarchyVersion) {
+        return "\"reporting-structure-" + hierarchyVersion + "-" + DigestUtils.md5DigestAsHex(
+                id.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * @return whether an If-Match header, a list of ETags or "*", allows a write to a resource with the given ETag;
+     * weak ETags never match
+     */
+    static boolean matches(String ifMatch, String etag) {
+        for (String candidate : ifMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void appendEmployee(StringBuilder fields, Employee employee) {
+        append(fields, employee.getEmployeeId());
+        append(fields, employee.getFirstName());
+        append(fields, employee.getLastName());
+        append(fields, employee.getPosition());
+        append(fields, employee.getDepartment());
+        append(fields, employee.getManagerId());
+        append(fields, employee.getVersion() != null ? employee.getVersion().toString() : null);
+
+        if (employee.getDirectReports() == null) {
+            append(fields, null);
+            return;
+        }
+        fields.append('[');
+        for (Employee directReport : employee.getDirectReports()) {
+            appendEmployee(fields, directReport);
+        }
+        fields.append(']');
+    }
+
+    private static void appendCompensation(StringBuilder fields, Compensation compensation) {
+        append(fields, compensation.getCompensationId());
+        append(fields, compensation.getEmployeeId());
+        append(fields, String.valueOf(compensation.getSalary()));
+        append(fields, compensation.getEffectiveDate() != null ? compensation.getEffectiveDate().toString() : null);
+    }
+
+    private static void append(StringBuilder fields, String value) {
+        fields.append(value != null ? value : NULL).append(SEPARATOR);
+    }
+
+    private static String digest(String type, StringBuilder fields) {
+        return "\"" + type + "-" + DigestUtils.md5DigestAsHex(fields.toString().getBytes(StandardCharsets.UTF_8))
+                + "\"";
+    }
+}
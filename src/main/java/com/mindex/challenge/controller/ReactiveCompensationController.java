@@ -0,0 +1,72 @@
+package com.mindex.challenge.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.BatchReadRequest;
+import com.mindex.challenge.data.BatchReadResult;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.service.ReactiveCompensationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Compensation API of the "reactive" profile, served by WebFlux on the same paths as CompensationController
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveCompensationController {
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveCompensationController.class);
+
+    @Autowired
+    private ReactiveCompensationService reactiveCompensationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PostMapping("/compensation/{id}")
+    public Mono<Compensation> create(@PathVariable String id, @RequestBody Compensation compensation) {
+        LOG.debug("Received compensation create request for employee with id [{}] and compensation [{}]", id,
+                compensation);
+
+        compensation.setEmployeeId(id);
+        return reactiveCompensationService.create(compensation);
+    }
+
+    @GetMapping("/compensation/{id}")
+    public Mono<Compensation> read(@PathVariable String id,
+                                   @RequestParam(required = false)
+                                   @DateTimeFormat(pattern = Compensation.DATE_PATTERN) LocalDate asOf,
+                                   ServerWebExchange exchange) {
+        LOG.debug("Received compensation read request for employee with id [{}] as of [{}]", id, asOf);
+
+        Mono<Compensation> compensation = asOf != null ? reactiveCompensationService.read(id, asOf)
+                : reactiveCompensationService.read(id);
+
+        // answered with 304 and no body if the client already holds this version
+        return compensation.filter(current -> !exchange.checkNotModified(EntityTags.of(current)));
+    }
+
+    @PostMapping("/compensation/_batch")
+    public Mono<BatchReadResult<?>> readAll(@RequestBody BatchReadRequest request) {
+        LOG.debug("Received compensation batch read request for employee ids [{}] and fields [{}]", request.getIds(),
+                request.getFields());
+
+        return reactiveCompensationService.readAll(request.getIds()).map(result -> EntityProjections.project(
+                objectMapper, result, Compensation.class, request.getFields(), "employeeId"));
+    }
+
+    @GetMapping("/compensation/{id}/history")
+    public Flux<Compensation> readHistory(@PathVariable String id) {
+        LOG.debug("Received compensation history request for employee with id [{}]", id);
+
+        return reactiveCompensationService.readHistory(id);
+    }
+}
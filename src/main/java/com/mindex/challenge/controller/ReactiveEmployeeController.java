@@ -0,0 +1,90 @@
+package com.mindex.challenge.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.BatchReadRequest;
+import com.mindex.challenge.data.BatchReadResult;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.EmployeeService;
+import com.mindex.challenge.service.ReactiveEmployeeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Employee API of the "reactive" profile, served by WebFlux on the same paths as EmployeeController
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveEmployeeController {
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveEmployeeController.class);
+
+    @Autowired
+    private ReactiveEmployeeService reactiveEmployeeService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PostMapping("/employee")
+    public Mono<Employee> create(@RequestBody Employee employee) {
+        LOG.debug("Received employee create request for [{}]", employee);
+
+        return reactiveEmployeeService.create(employee);
+    }
+
+    @GetMapping("/employee")
+    public Flux<Employee> search(@RequestParam(required = false) String department,
+                                 @RequestParam(required = false) String lastName,
+                                 @RequestParam(required = false) String firstName) {
+        LOG.debug("Received employee search request for department [{}], lastName [{}] and firstName [{}]",
+                department, lastName, firstName);
+
+        return reactiveEmployeeService.search(department, lastName, firstName);
+    }
+
+    @GetMapping("/employee/{id}")
+    public Mono<Employee> read(@PathVariable String id, ServerWebExchange exchange) {
+        LOG.debug("Received employee read request for id [{}]", id);
+
+        // answered with 304 and no body if the client already holds this version
+        return reactiveEmployeeService.read(id)
+                .filter(employee -> !exchange.checkNotModified(EntityTags.of(employee)));
+    }
+
+    @PostMapping("/employee/_batch")
+    public Mono<BatchReadResult<?>> readAll(@RequestBody BatchReadRequest request) {
+        LOG.debug("Received employee batch read request for ids [{}] and fields [{}]", request.getIds(),
+                request.getFields());
+
+        return reactiveEmployeeService.readAll(request.getIds()).map(result -> EntityProjections.project(
+                objectMapper, result, Employee.class, request.getFields(), "employeeId"));
+    }
+
+    @PutMapping("/employee/{id}")
+    public Mono<Employee> update(@PathVariable String id, @RequestBody Employee employee) {
+        LOG.debug("Received employee update request for id [{}] and employee [{}]", id, employee);
+
+        employee.setEmployeeId(id);
+        return reactiveEmployeeService.update(employee);
+    }
+
+    @GetMapping("/employee/{id}/reporting-structure")
+    public Mono<ReportingStructure> getReportingStructure(@PathVariable String id, ServerWebExchange exchange) {
+        LOG.debug("Received employee reporting structure request for id [{}]", id);
+
+        // the hierarchy version is an in-memory counter, so the revalidation does not block
+        if (exchange.checkNotModified(EntityTags.ofReportingStructure(id, employeeService.getHierarchyVersion()))) {
+            return Mono.empty();
+        }
+
+        return reactiveEmployeeService.getEmployeeReportingStructure(id);
+    }
+}
@@ -0,0 +1,74 @@
+package com.mindex.challenge.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.service.ReportingStructureVisitor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Writes the employees of a reporting structure to a JsonGenerator while they are visited, either as the nested
+ * ReportingStructure JSON or as one flat Employee object per line (NDJSON)
+ */
+class ReportingStructureStreamWriter implements ReportingStructureVisitor {
+
+    private final ObjectMapper objectMapper;
+    private final JsonGenerator generator;
+    private final boolean nested;
+
+    ReportingStructureStreamWriter(ObjectMapper objectMapper, JsonGenerator generator, boolean nested) {
+        this.objectMapper = objectMapper;
+        this.generator = generator;
+        this.nested = nested;
+    }
+
+    @Override
+    public void enter(Employee employee, int depth) {
+        try {
+            if (!nested) {
+                generator.writeObject(employee);
+                generator.writeRaw('\n');
+                return;
+            }
+
+            // employee fields first, then the directReports array which the following employees are written into
+            ObjectNode employeeNode = objectMapper.valueToTree(employee);
+            employeeNode.remove("directReports");
+
+            generator.writeStartObject();
+            Iterator<Map.Entry<String, JsonNode>> fields = employeeNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                generator.writeFieldName(field.getKey());
+                generator.writeTree(field.getValue());
+            }
+            if (employee.getDirectReports() != null) {
+                generator.writeArrayFieldStart("directReports");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void leave(Employee employee, int depth) {
+        if (!nested) {
+            return;
+        }
+
+        try {
+            if (employee.getDirectReports() != null) {
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
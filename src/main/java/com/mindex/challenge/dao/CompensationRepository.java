@@ -4,7 +4,12 @@ import com.mindex.challenge.data.Compensation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
+// answered by a range scan of the unique (employeeId, effectiveDate) index
 @Repository
 public interface CompensationRepository extends MongoRepository<Compensation, String> {
-    Compensation findByEmployeeId(String employeeId);
+    List<Compensation> findByEmployeeIdOrderByEffectiveDateAsc(String employeeId);
+    List<Compensation> findByEmployeeIdInOrderByEffectiveDateAsc(Collection<String> employeeIds);
 }
@@ -0,0 +1,13 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.EmployeeHierarchy;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EmployeeHierarchyRepository extends MongoRepository<EmployeeHierarchy, String> {
+    EmployeeHierarchy findByEmployeeId(String employeeId);
+    List<EmployeeHierarchy> findByAncestors(String ancestorId);
+}
@@ -0,0 +1,20 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Compensation;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+// answered by the unique (employeeId, effectiveDate) index
+@Repository
+public interface ReactiveCompensationRepository extends ReactiveMongoRepository<Compensation, String> {
+    Mono<Compensation> findFirstByEmployeeIdAndEffectiveDateLessThanEqualOrderByEffectiveDateDesc(
+            String employeeId, LocalDate effectiveDate);
+    Flux<Compensation> findByEmployeeIdOrderByEffectiveDateAsc(String employeeId);
+    Flux<Compensation> findByEmployeeIdInAndEffectiveDateLessThanEqualOrderByEffectiveDateAsc(
+            Collection<String> employeeIds, LocalDate effectiveDate);
+}
@@ -0,0 +1,30 @@
+package com.mindex.challenge.data;
+
+import java.util.List;
+
+public class BatchReadRequest {
+
+    private List<String> ids;
+
+    // optional subset of the fields to return, all fields if null
+    private List<String> fields;
+
+    public BatchReadRequest() {
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public void setFields(List<String> fields) {
+        this.fields = fields;
+    }
+}
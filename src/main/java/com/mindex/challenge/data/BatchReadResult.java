@@ -0,0 +1,34 @@
+package com.mindex.challenge.data;
+
+import java.util.List;
+
+public class BatchReadResult<T> {
+
+    // in the order of the requested ids
+    private List<T> found;
+    private List<String> missing;
+
+    public BatchReadResult() {
+    }
+
+    public BatchReadResult(List<T> found, List<String> missing) {
+        this.found = found;
+        this.missing = missing;
+    }
+
+    public List<T> getFound() {
+        return found;
+    }
+
+    public void setFound(List<T> found) {
+        this.found = found;
+    }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<String> missing) {
+        this.missing = missing;
+    }
+}
@@ -0,0 +1,62 @@
+package com.mindex.challenge.data;
+
+public class CacheStatistics {
+
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private double averageLoadPenaltyNanos;
+
+    public CacheStatistics() {
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public void setMissCount(long missCount) {
+        this.missCount = missCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public void setEvictionCount(long evictionCount) {
+        this.evictionCount = evictionCount;
+    }
+
+    public double getAverageLoadPenaltyNanos() {
+        return averageLoadPenaltyNanos;
+    }
+
+    public void setAverageLoadPenaltyNanos(double averageLoadPenaltyNanos) {
+        this.averageLoadPenaltyNanos = averageLoadPenaltyNanos;
+    }
+}
@@ -0,0 +1,110 @@
+package com.mindex.challenge.data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * One entry of the change log: a mutation of an Employee or a Compensation, numbered in the order it was applied
+ */
+@Document
+public class Change {
+
+    public static final String EMPLOYEE = "employee";
+    public static final String COMPENSATION = "compensation";
+
+    public static final String CREATE = "create";
+    public static final String UPDATE = "update";
+    public static final String PATCH = "patch";
+
+    // one change for the entities inserted together by a bulk import or the org generator
+    public static final String BULK_CREATE = "bulk-create";
+
+    @Id
+    private long sequence;
+
+    // removed once older than the retention window of the change log
+    @Indexed
+    private Instant timestamp;
+
+    private String entityType;
+    private String operation;
+    // null for a bulk-create
+    private String employeeId;
+
+    // version of the Employee after the change; several changes of one employee are appended in version order, but
+    // a consumer reading changes of several application instances must still keep the highest version it has seen
+    private Long version;
+
+    // the Employee or Compensation after the change, or the list of them for a bulk-create; declared as Object so
+    // that the indexes of the entities are not created on the change log as well
+    private Object entity;
+
+    public Change() {
+    }
+
+    public Change(String entityType, String operation, String employeeId, Object entity) {
+        this.entityType = entityType;
+        this.operation = operation;
+        this.employeeId = employeeId;
+        this.entity = entity;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Object getEntity() {
+        return entity;
+    }
+
+    public void setEntity(Object entity) {
+        this.entity = entity;
+    }
+}
@@ -0,0 +1,47 @@
+package com.mindex.challenge.data;
+
+import java.util.List;
+
+public class ChangeBatch {
+
+    private List<Change> changes;
+
+    // sequence to continue from: the last returned change, or the requested one if no change was returned
+    private long lastSequence;
+
+    // changes after the requested sequence were already removed from the log, the consumer has to resynchronize
+    private boolean truncated;
+
+    public ChangeBatch() {
+    }
+
+    public ChangeBatch(List<Change> changes, long lastSequence, boolean truncated) {
+        this.changes = changes;
+        this.lastSequence = lastSequence;
+        this.truncated = truncated;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<Change> changes) {
+        this.changes = changes;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+}
@@ -1,19 +1,44 @@
 package com.mindex.challenge.data;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.LocalDate;
+
+/**
+ * One entry of the compensation history of an employee, in effect from its effectiveDate until the effectiveDate of
+ * the next entry
+ */
+@Document
+@CompoundIndexes({
+        @CompoundIndex(name = "history", def = "{'employeeId': 1, 'effectiveDate': -1}", unique = true)
+})
 public class Compensation {
 
+    public static final String DATE_PATTERN = "MM/dd/yyyy";
+
     @Id
+    private String compensationId;
     private String employeeId;
     private int salary;
 
-    // Date format: MM/DD/YYYY
-    private String effectiveDate;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = DATE_PATTERN)
+    private LocalDate effectiveDate;
 
     public Compensation(){
     }
 
+    public String getCompensationId(){
+        return compensationId;
+    }
+
+    public void setCompensationId(String compensationId){
+        this.compensationId = compensationId;
+    }
+
     public String getEmployeeId(){
         return employeeId;
     }
@@ -30,11 +55,11 @@ public class Compensation {
         this.salary = salary;
     }
 
-    public String getEffectiveDate(){
+    public LocalDate getEffectiveDate(){
         return effectiveDate;
     }
 
-    public void setEffectiveDate(String effectiveDate){
+    public void setEffectiveDate(LocalDate effectiveDate){
         this.effectiveDate = effectiveDate;
     }
 }
@@ -0,0 +1,83 @@
+package com.mindex.challenge.data;
+
+/**
+ * Salary statistics over the current compensation of a group of employees; percentiles use the nearest-rank method
+ */
+public class CompensationStatistics {
+
+    private int count;
+    private long total;
+    private double average;
+    private int min;
+    private int max;
+    private int p50;
+    private int p90;
+    private int p99;
+
+    public CompensationStatistics() {
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    public void setAverage(double average) {
+        this.average = average;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public void setMin(int min) {
+        this.min = min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public void setMax(int max) {
+        this.max = max;
+    }
+
+    public int getP50() {
+        return p50;
+    }
+
+    public void setP50(int p50) {
+        this.p50 = p50;
+    }
+
+    public int getP90() {
+        return p90;
+    }
+
+    public void setP90(int p90) {
+        this.p90 = p90;
+    }
+
+    public int getP99() {
+        return p99;
+    }
+
+    public void setP99(int p99) {
+        this.p99 = p99;
+    }
+}
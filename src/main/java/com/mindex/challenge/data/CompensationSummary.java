@@ -0,0 +1,71 @@
+package com.mindex.challenge.data;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+public class CompensationSummary {
+
+    private String employeeId;
+    private int numberOfReports;
+
+    // reports without a compensation in effect today, which are left out of the statistics
+    private int reportsWithoutCompensation;
+    private CompensationStatistics statistics;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String groupBy;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, CompensationStatistics> groups;
+
+    public CompensationSummary() {
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public int getNumberOfReports() {
+        return numberOfReports;
+    }
+
+    public void setNumberOfReports(int numberOfReports) {
+        this.numberOfReports = numberOfReports;
+    }
+
+    public int getReportsWithoutCompensation() {
+        return reportsWithoutCompensation;
+    }
+
+    public void setReportsWithoutCompensation(int reportsWithoutCompensation) {
+        this.reportsWithoutCompensation = reportsWithoutCompensation;
+    }
+
+    public CompensationStatistics getStatistics() {
+        return statistics;
+    }
+
+    public void setStatistics(CompensationStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public String getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(String groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    public Map<String, CompensationStatistics> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(Map<String, CompensationStatistics> groups) {
+        this.groups = groups;
+    }
+}
@@ -1,18 +1,39 @@
 package com.mindex.challenge.data;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
 
+// directReports are embedded Employee objects, so their employeeId is stored as directReports._id
+@Document
+@CompoundIndexes({
+        @CompoundIndex(name = "manager", def = "{'directReports._id': 1}"),
+        @CompoundIndex(name = "name", def = "{'lastName': 1, 'firstName': 1}")
+})
 public class Employee {
     @Id
     private String employeeId;
     private String firstName;
     private String lastName;
+    @Indexed
     private String position;
+    @Indexed
     private String department;
+
+    // employeeId of the manager listing this employee in its directReports, maintained by the service layer
+    @Indexed
+    private String managerId;
     private List<Employee> directReports;
 
+    // incremented on every write, a save based on an older version fails
+    @Version
+    private Long version;
+
     public Employee() {
     }
 
@@ -56,6 +77,14 @@ public class Employee {
         this.department = department;
     }
 
+    public String getManagerId() {
+        return managerId;
+    }
+
+    public void setManagerId(String managerId) {
+        this.managerId = managerId;
+    }
+
     public List<Employee> getDirectReports() {
         return directReports;
     }
@@ -64,6 +93,14 @@ public class Employee {
         this.directReports = directReports;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     /**
      * method to copy employee metadata (firstName, lastName etc.) from a complete Employee object into a partially
      * instantiated Employee object
@@ -74,5 +111,6 @@ public class Employee {
         setLastName(completeEmployee.getLastName());
         setDepartment(completeEmployee.getDepartment());
         setPosition(completeEmployee.getPosition());
+        setManagerId(completeEmployee.getManagerId());
     }
 }
@@ -0,0 +1,67 @@
+package com.mindex.challenge.data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.List;
+
+/**
+ * Materialized position of an employee in the reporting hierarchy, maintained alongside the Employee documents so that
+ * the number of reports can be answered without walking the subtree
+ */
+@Document
+public class EmployeeHierarchy {
+
+    @Id
+    private String employeeId;
+    @Indexed
+    private String managerId;
+
+    // employeeIds from the top of the hierarchy down to the direct manager
+    @Indexed
+    private List<String> ancestors;
+    private int descendantCount;
+
+    public EmployeeHierarchy() {
+    }
+
+    public EmployeeHierarchy(String employeeId, List<String> ancestors) {
+        this.employeeId = employeeId;
+        this.ancestors = ancestors;
+        this.managerId = ancestors.isEmpty() ? null : ancestors.get(ancestors.size() - 1);
+        this.descendantCount = 0;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public String getManagerId() {
+        return managerId;
+    }
+
+    public void setManagerId(String managerId) {
+        this.managerId = managerId;
+    }
+
+    public List<String> getAncestors() {
+        return ancestors;
+    }
+
+    public void setAncestors(List<String> ancestors) {
+        this.ancestors = ancestors;
+    }
+
+    public int getDescendantCount() {
+        return descendantCount;
+    }
+
+    public void setDescendantCount(int descendantCount) {
+        this.descendantCount = descendantCount;
+    }
+}
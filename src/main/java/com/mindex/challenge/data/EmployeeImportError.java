@@ -0,0 +1,42 @@
+package com.mindex.challenge.data;
+
+public class EmployeeImportError {
+
+    // position of the employee in the imported array
+    private long index;
+    private String employeeId;
+    private String message;
+
+    public EmployeeImportError() {
+    }
+
+    public EmployeeImportError(long index, String employeeId, String message) {
+        this.index = index;
+        this.employeeId = employeeId;
+        this.message = message;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
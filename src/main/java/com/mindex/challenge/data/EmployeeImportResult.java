@@ -0,0 +1,79 @@
+package com.mindex.challenge.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EmployeeImportResult {
+
+    private long received;
+    private long inserted;
+    private long failed;
+
+    // first errors only, failed holds the total
+    private List<EmployeeImportError> errors = new ArrayList<>();
+
+    // directReports employeeIds which are neither imported nor already stored
+    private List<String> unresolvedReferences = new ArrayList<>();
+
+    private long elapsedMillis;
+    private double employeesPerSecond;
+
+    public EmployeeImportResult() {
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public List<EmployeeImportError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<EmployeeImportError> errors) {
+        this.errors = errors;
+    }
+
+    public List<String> getUnresolvedReferences() {
+        return unresolvedReferences;
+    }
+
+    public void setUnresolvedReferences(List<String> unresolvedReferences) {
+        this.unresolvedReferences = unresolvedReferences;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getEmployeesPerSecond() {
+        return employeesPerSecond;
+    }
+
+    public void setEmployeesPerSecond(double employeesPerSecond) {
+        this.employeesPerSecond = employeesPerSecond;
+    }
+}
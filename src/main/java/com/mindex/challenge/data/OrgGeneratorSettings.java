@@ -0,0 +1,98 @@
+package com.mindex.challenge.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Shape of a generated organisation. The same settings always generate the same employees, compensations and
+ * employeeIds, so that load drivers can address a generated organisation without reading it first.
+ */
+public class OrgGeneratorSettings {
+
+    public static final String CONSTANT_DISTRIBUTION = "constant";
+    public static final String UNIFORM_DISTRIBUTION = "uniform";
+    public static final String POWER_LAW_DISTRIBUTION = "power-law";
+
+    // number of employees; fewer are generated if maxDepth is reached first
+    private int size = 1000;
+
+    // mean number of direct reports per manager, distributed according to fanOutDistribution
+    private int fanOut = 5;
+    private String fanOutDistribution = CONSTANT_DISTRIBUTION;
+
+    // number of levels including the root, 0 for no limit
+    private int maxDepth;
+
+    // number of employees which additionally list one of their own managers as a direct report
+    private int cycles;
+
+    private boolean compensations = true;
+    private long seed = 42;
+
+    public OrgGeneratorSettings() {
+    }
+
+    /**
+     * @param index : position of the employee in Breadth First order, the root being 0
+     * @return the employeeId of the employee, derived from the seed and the index only
+     */
+    public String employeeId(int index) {
+        return UUID.nameUUIDFromBytes((seed + "/" + index).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public int getFanOut() {
+        return fanOut;
+    }
+
+    public void setFanOut(int fanOut) {
+        this.fanOut = fanOut;
+    }
+
+    public String getFanOutDistribution() {
+        return fanOutDistribution;
+    }
+
+    public void setFanOutDistribution(String fanOutDistribution) {
+        this.fanOutDistribution = fanOutDistribution;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public int getCycles() {
+        return cycles;
+    }
+
+    public void setCycles(int cycles) {
+        this.cycles = cycles;
+    }
+
+    public boolean isCompensations() {
+        return compensations;
+    }
+
+    public void setCompensations(boolean compensations) {
+        this.compensations = compensations;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+}
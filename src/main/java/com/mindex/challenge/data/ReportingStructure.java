@@ -1,10 +1,18 @@
 package com.mindex.challenge.data;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class ReportingStructure {
 
     private Employee employee;
     private int numberOfReports;
 
+    // set when the employee tree was not expanded completely, and when numberOfReports is then only a lower bound
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean truncated;
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean numberOfReportsApproximate;
+
     public ReportingStructure() {
     }
 
@@ -24,4 +32,20 @@ public class ReportingStructure {
     public void setNumberOfReports(int numberOfReports) {
         this.numberOfReports = numberOfReports;
     }
+
+    public boolean isTruncated() {
+        return this.truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    public boolean isNumberOfReportsApproximate() {
+        return this.numberOfReportsApproximate;
+    }
+
+    public void setNumberOfReportsApproximate(boolean numberOfReportsApproximate) {
+        this.numberOfReportsApproximate = numberOfReportsApproximate;
+    }
 }
@@ -0,0 +1,12 @@
+package com.mindex.challenge.service;
+
+import com.mindex.challenge.data.CacheStatistics;
+import org.bson.Document;
+
+import java.util.List;
+import java.util.Map;
+
+public interface AdminService {
+    Map<String, List<Document>> getIndexStatistics();
+    Map<String, CacheStatistics> getCacheStatistics();
+}
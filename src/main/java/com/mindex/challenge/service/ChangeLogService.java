@@ -0,0 +1,12 @@
+package com.mindex.challenge.service;
+
+import com.mindex.challenge.data.Change;
+import com.mindex.challenge.data.ChangeBatch;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface ChangeLogService {
+    Change append(String entityType, String operation, String employeeId, Object entity);
+    ChangeBatch read(long since, int limit);
+    CompletableFuture<ChangeBatch> poll(long since, int limit);
+}
@@ -1,8 +1,17 @@
 package com.mindex.challenge.service;
 
+import com.mindex.challenge.data.BatchReadResult;
 import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationSummary;
+
+import java.time.LocalDate;
+import java.util.List;
 
 public interface CompensationService {
     Compensation create(Compensation compensation);
     Compensation read(String id);
+    Compensation read(String id, LocalDate asOf);
+    BatchReadResult<Compensation> readAll(List<String> ids);
+    List<Compensation> readHistory(String id);
+    CompensationSummary getCompensationSummary(String id, String groupBy);
 }
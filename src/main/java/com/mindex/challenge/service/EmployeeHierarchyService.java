@@ -0,0 +1,14 @@
+package com.mindex.challenge.service;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeHierarchy;
+
+import java.util.List;
+
+public interface EmployeeHierarchyService {
+    EmployeeHierarchy read(String employeeId);
+    List<EmployeeHierarchy> readDescendants(String employeeId);
+    void rebuild();
+    void validateDirectReports(String employeeId, List<Employee> previousDirectReports, List<Employee> directReports);
+    void updateDirectReports(String employeeId, List<Employee> previousDirectReports, List<Employee> directReports);
+}
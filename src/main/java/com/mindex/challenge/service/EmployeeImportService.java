@@ -0,0 +1,9 @@
+package com.mindex.challenge.service;
+
+import com.mindex.challenge.data.EmployeeImportResult;
+
+import java.io.InputStream;
+
+public interface EmployeeImportService {
+    EmployeeImportResult importEmployees(InputStream inputStream, boolean ordered);
+}
@@ -1,11 +1,26 @@
 package com.mindex.challenge.service;
 
+import com.mindex.challenge.data.BatchReadResult;
 import com.mindex.challenge.data.Employee;
 import com.mindex.challenge.data.ReportingStructure;
 
+import java.util.List;
+import java.util.Map;
+
 public interface EmployeeService {
     Employee create(Employee employee);
     Employee read(String id);
+    BatchReadResult<Employee> readAll(List<String> ids);
+    List<Employee> search(String department, String lastName, String firstName);
     Employee update(Employee employee);
+    Employee patch(String id, Map<String, Object> fields, Long expectedVersion);
     ReportingStructure getEmployeeReportingStructure(String id);
+    ReportingStructure getEmployeeReportingStructure(String id, TraversalMode traversalMode);
+    ReportingStructure getEmployeeReportingStructure(String id, int depth, int limit);
+    ReportingStructure getEmployeeReportCount(String id);
+    List<Employee> getReports(String id);
+    long getHierarchyVersion();
+    int visitEmployeeReportingStructure(String id, ReportingStructureVisitor visitor);
+    List<Employee> getManagementChain(String id);
+    Employee getCommonManager(String id, String otherId);
 }
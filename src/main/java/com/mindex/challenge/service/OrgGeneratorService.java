@@ -0,0 +1,8 @@
+package com.mindex.challenge.service;
+
+import com.mindex.challenge.data.EmployeeImportResult;
+import com.mindex.challenge.data.OrgGeneratorSettings;
+
+public interface OrgGeneratorService {
+    EmployeeImportResult generate(OrgGeneratorSettings settings);
+}
@@ -0,0 +1,9 @@
+package com.mindex.challenge.service;
+
+import com.mindex.challenge.data.ReportingStructure;
+
+public interface OrgGraphCacheService {
+    ReportingStructure getReportingStructure(String id);
+    int getNumberOfReports(String id);
+    void invalidate();
+}
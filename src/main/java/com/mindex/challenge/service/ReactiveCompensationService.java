@@ -0,0 +1,17 @@
+package com.mindex.challenge.service;
+
+import com.mindex.challenge.data.BatchReadResult;
+import com.mindex.challenge.data.Compensation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ReactiveCompensationService {
+    Mono<Compensation> create(Compensation compensation);
+    Mono<Compensation> read(String id);
+    Mono<Compensation> read(String id, LocalDate asOf);
+    Mono<BatchReadResult<Compensation>> readAll(List<String> ids);
+    Flux<Compensation> readHistory(String id);
+}
@@ -0,0 +1,18 @@
+package com.mindex.challenge.service;
+
+import com.mindex.challenge.data.BatchReadResult;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportingStructure;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveEmployeeService {
+    Mono<Employee> create(Employee employee);
+    Mono<Employee> read(String id);
+    Mono<BatchReadResult<Employee>> readAll(List<String> ids);
+    Flux<Employee> search(String department, String lastName, String firstName);
+    Mono<Employee> update(Employee employee);
+    Mono<ReportingStructure> getEmployeeReportingStructure(String id);
+}
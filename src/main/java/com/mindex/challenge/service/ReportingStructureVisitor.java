@@ -0,0 +1,12 @@
+package com.mindex.challenge.service;
+
+import com.mindex.challenge.data.Employee;
+
+/**
+ * Receives the employees of a reporting structure in Depth First order, as soon as they are retrieved. The Employee
+ * objects are complete, with directReports only containing the employee ID.
+ */
+public interface ReportingStructureVisitor {
+    void enter(Employee employee, int depth);
+    void leave(Employee employee, int depth);
+}
@@ -0,0 +1,32 @@
+package com.mindex.challenge.service;
+
+/**
+ * Strategies available for walking the employee hierarchy when computing a ReportingStructure
+ */
+public enum TraversalMode {
+    /**
+     * Breadth First traversal issuing one repository lookup per visited employee
+     */
+    SEQUENTIAL,
+
+    /**
+     * Breadth First traversal issuing one batched repository lookup per level of the hierarchy
+     */
+    BATCHED,
+
+    /**
+     * Single $graphLookup aggregation walking the whole subtree inside the database; databases without $graphLookup,
+     * like the embedded MongoServer, are walked like BATCHED
+     */
+    GRAPH_LOOKUP,
+
+    /**
+     * Breadth First traversal over the in-memory org graph, without any repository call
+     */
+    CACHED,
+
+    /**
+     * Fork/join traversal expanding sibling subtrees concurrently, with one batched repository lookup per manager
+     */
+    FORK_JOIN
+}
@@ -0,0 +1,67 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.CacheStatistics;
+import com.mindex.challenge.service.AdminService;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Service
+public class AdminServiceImpl implements AdminService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AdminServiceImpl.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private ReportingStructureCache reportingStructureCache;
+
+    /**
+     * @return the $indexStats usage statistics of every index, keyed by collection name; backends which do not support
+     * $indexStats (such as the embedded MongoServer) only list the index definitions
+     */
+    @Override
+    public Map<String, List<Document>> getIndexStatistics() {
+        LOG.debug("Getting index statistics");
+
+        Map<String, List<Document>> indexStatistics = new TreeMap<>();
+        for (String collectionName : mongoTemplate.getCollectionNames()) {
+            MongoCollection<Document> collection = mongoTemplate.getCollection(collectionName);
+
+            List<Document> indexes = new ArrayList<>();
+            try {
+                collection.aggregate(Collections.singletonList(new Document("$indexStats", new Document())))
+                        .into(indexes);
+            } catch (MongoException e) {
+                LOG.debug("$indexStats is not available for collection [{}]: {}", collectionName, e.getMessage());
+                indexes.clear();
+                collection.listIndexes().into(indexes);
+            }
+
+            indexStatistics.put(collectionName, indexes);
+        }
+
+        return indexStatistics;
+    }
+
+    @Override
+    public Map<String, CacheStatistics> getCacheStatistics() {
+        LOG.debug("Getting cache statistics");
+
+        Map<String, CacheStatistics> statistics = entityCaches.getStatistics();
+        statistics.put("reporting-structure", reportingStructureCache.getStatistics());
+
+        return statistics;
+    }
+}
@@ -0,0 +1,52 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.BatchReadResult;
+
+import java.util.*;
+
+/**
+ * Request checks and result assembly shared by the batch reads of the employee and compensation services
+ */
+final class BatchReads {
+
+    static final int MAX_IDS = 1000;
+
+    private BatchReads() {
+    }
+
+    /**
+     * @return the requested ids without duplicates, in request order
+     */
+    static List<String> distinctIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new RuntimeException("Batch read requires ids");
+        }
+
+        List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.size() > MAX_IDS) {
+            throw new RuntimeException("Batch read is limited to " + MAX_IDS + " ids");
+        }
+
+        return distinctIds;
+    }
+
+    /**
+     * @param ids : distinct requested ids
+     * @param values : values found for some of the ids
+     * @return the found values in the order of the ids, and the ids without a value
+     */
+    static <T> BatchReadResult<T> toResult(List<String> ids, Map<String, T> values) {
+        List<T> found = new ArrayList<>(values.size());
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            T value = values.get(id);
+            if (value != null) {
+                found.add(value);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        return new BatchReadResult<>(found, missing);
+    }
+}
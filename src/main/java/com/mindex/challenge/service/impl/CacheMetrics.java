@@ -0,0 +1,28 @@
+package com.mindex.challenge.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the hit, miss, eviction and size statistics of the entity and reporting structure caches, which are also
+ * available through /admin/caches
+ */
+@Component
+public class CacheMetrics implements MeterBinder {
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private ReportingStructureCache reportingStructureCache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, entityCaches.employees().getNativeCache(), "employee");
+        CaffeineCacheMetrics.monitor(registry, entityCaches.compensationHistories().getNativeCache(), "compensation");
+        CaffeineCacheMetrics.monitor(registry, reportingStructureCache.getNativeCache(), "reporting-structure");
+    }
+}
@@ -0,0 +1,256 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.Change;
+import com.mindex.challenge.data.ChangeBatch;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.service.ChangeLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Ordered log of the Employee and Compensation mutations. Sequence numbers are assigned and the changes inserted under
+ * one lock, so that a consumer never sees a change before one with a lower sequence. The mutations themselves are
+ * written before that lock is taken, so two concurrent writes of one employee can reach it in the opposite order; a
+ * change whose employee version is older than an already appended one is superseded by it and not logged again. The
+ * most recent changes are also kept in memory, which answers consumers that are keeping up, including every waiting
+ * long poll, without a query.
+ */
+@Service
+public class ChangeLogServiceImpl implements ChangeLogService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeLogServiceImpl.class);
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // 0 keeps every change
+    @Value("${change-log.retention-seconds:604800}")
+    private long retentionSeconds;
+
+    @Value("${change-log.purge-interval-seconds:60}")
+    private long purgeIntervalSeconds;
+
+    @Value("${change-log.buffer-size:1000}")
+    private int bufferSize;
+
+    private final Object lock = new Object();
+
+    // guarded by lock: the most recent changes, ending with lastSequence
+    private final Deque<Change> recentChanges = new ArrayDeque<>();
+    private long lastSequence;
+    private long firstSequence;
+    private Instant nextPurge = Instant.MIN;
+
+    private final Set<Poll> polls = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        synchronized (lock) {
+            loadSequences();
+        }
+    }
+
+    /**
+     * method to append a change after the mutation was written, and to answer the long polls waiting for it
+     * @param entityType : Change.EMPLOYEE or Change.COMPENSATION
+     * @param operation : Change.CREATE, Change.UPDATE, Change.PATCH or Change.BULK_CREATE
+     * @param employeeId : employeeId of the changed employee, or of the employee the compensation belongs to; null for
+     *                   a bulk-create
+     * @param entity : the Employee or Compensation after the change, or the list of them for a bulk-create
+     * @return the change with its sequence, or the appended change of a later version of the employee which
+     * supersedes it
+     */
+    @Override
+    public Change append(String entityType, String operation, String employeeId, Object entity) {
+        Change change = new Change(entityType, operation, employeeId, entity);
+        if (entity instanceof Employee) {
+            change.setVersion(((Employee) entity).getVersion());
+        }
+
+        synchronized (lock) {
+            Change laterChange = findLaterChange(change);
+            if (laterChange != null) {
+                LOG.debug("Change of employee with id [{}] at version [{}] is superseded by change [{}]", employeeId,
+                        change.getVersion(), laterChange.getSequence());
+                return laterChange;
+            }
+
+            change.setTimestamp(Instant.now());
+            insert(change);
+
+            recentChanges.addLast(change);
+            if (recentChanges.size() > bufferSize) {
+                recentChanges.removeFirst();
+            }
+
+            if (retentionSeconds > 0 && !change.getTimestamp().isBefore(nextPurge)) {
+                purge(change.getTimestamp());
+            }
+        }
+
+        LOG.debug("Appended [{}] of [{}] for employee with id [{}] as change [{}]", operation, entityType, employeeId,
+                change.getSequence());
+
+        for (Poll poll : polls) {
+            if (poll.since < change.getSequence()) {
+                poll.future.complete(read(poll.since, poll.limit));
+            }
+        }
+
+        return change;
+    }
+
+    /**
+     * @param since : sequence of the last change the consumer has seen, 0 for the start of the log
+     * @param limit : maximum number of changes to return
+     * @return the changes after since in sequence order, possibly none
+     */
+    @Override
+    public ChangeBatch read(long since, int limit) {
+        int maxChanges = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        long retainedFrom;
+        synchronized (lock) {
+            retainedFrom = firstSequence;
+            Change firstRecentChange = recentChanges.peekFirst();
+            long bufferedAfter = firstRecentChange != null ? firstRecentChange.getSequence() - 1 : lastSequence;
+            if (since >= bufferedAfter) {
+                List<Change> changes = new ArrayList<>();
+                for (Change change : recentChanges) {
+                    if (change.getSequence() > since && changes.size() < maxChanges) {
+                        changes.add(change);
+                    }
+                }
+                return toBatch(changes, since, retainedFrom);
+            }
+        }
+
+        Query query = new Query(where("_id").gt(since)).with(Sort.by(Sort.Direction.ASC, "_id")).limit(maxChanges);
+        return toBatch(mongoTemplate.find(query, Change.class), since, retainedFrom);
+    }
+
+    /**
+     * method to wait for the changes after a sequence
+     * @param since : sequence of the last change the consumer has seen
+     * @param limit : maximum number of changes to return
+     * @return completed at once if there are changes after since, otherwise with the next appended change; completing
+     * the future from outside, e.g. with an empty batch when the poll times out, ends the wait
+     */
+    @Override
+    public CompletableFuture<ChangeBatch> poll(long since, int limit) {
+        Poll poll = new Poll(since, limit);
+
+        // registered before reading, so that a change appended in between is not missed
+        polls.add(poll);
+        poll.future.whenComplete((batch, e) -> polls.remove(poll));
+
+        ChangeBatch batch = read(since, limit);
+        if (!batch.getChanges().isEmpty() || batch.isTruncated()) {
+            poll.future.complete(batch);
+        }
+
+        return poll.future;
+    }
+
+    /**
+     * method to find, among the recent changes, a change of the same employee at a later version; a write racing with
+     * the change is appended within the same few changes
+     * @param change : employee change about to be appended
+     * @return the later change, or null
+     */
+    private Change findLaterChange(Change change) {
+        if (change.getVersion() == null) {
+            return null;
+        }
+
+        Iterator<Change> recentChangeIterator = recentChanges.descendingIterator();
+        while (recentChangeIterator.hasNext()) {
+            Change recentChange = recentChangeIterator.next();
+            if (recentChange.getVersion() != null && recentChange.getVersion() > change.getVersion()
+                    && Change.EMPLOYEE.equals(recentChange.getEntityType())
+                    && change.getEmployeeId().equals(recentChange.getEmployeeId())) {
+                return recentChange;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Assigns the next sequence; another application instance writing to the same database can have taken it, in
+     * which case the sequences are reloaded
+     */
+    private void insert(Change change) {
+        while (true) {
+            change.setSequence(lastSequence + 1);
+            try {
+                mongoTemplate.insert(change);
+                lastSequence = change.getSequence();
+                return;
+            } catch (DuplicateKeyException e) {
+                LOG.debug("Change [{}] was appended elsewhere, reloading sequences", change.getSequence());
+                recentChanges.clear();
+                loadSequences();
+            }
+        }
+    }
+
+    private void purge(Instant now) {
+        Instant cutoff = now.minusSeconds(retentionSeconds);
+        long removed = mongoTemplate.remove(new Query(where("timestamp").lt(cutoff)), Change.class)
+                .getDeletedCount();
+
+        while (!recentChanges.isEmpty() && recentChanges.peekFirst().getTimestamp().isBefore(cutoff)) {
+            recentChanges.removeFirst();
+        }
+        if (removed > 0) {
+            loadSequences();
+        }
+        nextPurge = now.plusSeconds(purgeIntervalSeconds);
+
+        LOG.debug("Removed [{}] changes older than [{}]", removed, cutoff);
+    }
+
+    private void loadSequences() {
+        Change lastChange = mongoTemplate.findOne(new Query().with(Sort.by(Sort.Direction.DESC, "_id")),
+                Change.class);
+        Change firstChange = mongoTemplate.findOne(new Query().with(Sort.by(Sort.Direction.ASC, "_id")),
+                Change.class);
+
+        lastSequence = Math.max(lastSequence, lastChange != null ? lastChange.getSequence() : 0);
+        firstSequence = firstChange != null ? firstChange.getSequence() : lastSequence + 1;
+    }
+
+    private static ChangeBatch toBatch(List<Change> changes, long since, long retainedFrom) {
+        long lastReturned = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence();
+        return new ChangeBatch(changes, lastReturned, since + 1 < retainedFrom);
+    }
+
+    private static class Poll {
+        private final long since;
+        private final int limit;
+        private final CompletableFuture<ChangeBatch> future = new CompletableFuture<>();
+
+        Poll(long since, int limit) {
+            this.since = since;
+            this.limit = limit;
+        }
+    }
+}
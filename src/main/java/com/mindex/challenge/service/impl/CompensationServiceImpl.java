@@ -2,19 +2,38 @@ package com.mindex.challenge.service.impl;
 
 import com.mindex.challenge.dao.CompensationRepository;
 import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.BatchReadResult;
+import com.mindex.challenge.data.Change;
 import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationStatistics;
+import com.mindex.challenge.data.CompensationSummary;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.service.ChangeLogService;
 import com.mindex.challenge.service.CompensationService;
+import com.mindex.challenge.service.EmployeeService;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
 @Service
 public class CompensationServiceImpl implements CompensationService {
 
     private static final Logger LOG = LoggerFactory.getLogger(CompensationServiceImpl.class);
+    private static final int SUMMARY_BATCH_SIZE = 10000;
+    private static final String UNASSIGNED_GROUP = "unassigned";
 
     @Autowired
     private CompensationRepository compensationRepository;
@@ -22,6 +41,18 @@ public class CompensationServiceImpl implements CompensationService {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
     @Override
     public Compensation create(Compensation compensation) {
         LOG.debug("Creating compensation [{}]", compensation);
@@ -33,22 +64,30 @@ public class CompensationServiceImpl implements CompensationService {
         }
 
         // check if employee with the same employeeId exists in employeeRepository
-        Employee employee = employeeRepository.findByEmployeeId(employeeId);
+        Employee employee = entityCaches.employees().get(employeeId, employeeRepository::findByEmployeeId);
         if (employee == null){
             LOG.error("Employee with employeeId [{}] does not exist", employeeId);
             throw new RuntimeException("Compensation creation failed");
         }
 
+        // the history is keyed by effectiveDate, a compensation without one takes effect today
+        if (compensation.getEffectiveDate() == null) {
+            compensation.setEffectiveDate(LocalDate.now());
+        }
+        compensation.setCompensationId(null);
+
         compensationRepository.insert(compensation);
+        entityCaches.compensationHistories().invalidate(employeeId);
+        changeLogService.append(Change.COMPENSATION, Change.CREATE, employeeId, compensation);
 
         return compensation;
     }
 
     @Override
     public Compensation read(String id) {
-        LOG.debug("Reading compensation for employee with id [{}]", id);
+        LOG.debug("Reading current compensation for employee with id [{}]", id);
 
-        Compensation compensation = compensationRepository.findByEmployeeId(id);
+        Compensation compensation = findInEffect(readCachedHistory(id), LocalDate.now());
 
         if (compensation == null) {
             throw new RuntimeException("Invalid employeeId: " + id);
@@ -57,4 +96,225 @@ public class CompensationServiceImpl implements CompensationService {
         return compensation;
     }
 
+    @Override
+    public Compensation read(String id, LocalDate asOf) {
+        LOG.debug("Reading compensation for employee with id [{}] as of [{}]", id, asOf);
+
+        Compensation compensation = findInEffect(readCachedHistory(id), asOf);
+
+        if (compensation == null) {
+            throw new RuntimeException("No compensation in effect on " + asOf + " for employeeId: " + id);
+        }
+
+        return compensation;
+    }
+
+    /**
+     * method to read the current compensation of several employees at once; the histories which are not cached are
+     * retrieved with a single range scan per employee of the (employeeId, effectiveDate) index, in one repository call
+     * @param ids : employeeIds of the employees, at most BatchReads.MAX_IDS distinct ones
+     * @return the compensations in effect today in request order, and the employeeIds without one
+     */
+    @Override
+    public BatchReadResult<Compensation> readAll(List<String> ids) {
+        List<String> employeeIds = BatchReads.distinctIds(ids);
+        LOG.debug("Reading current compensation for [{}] employees", employeeIds.size());
+
+        Map<String, List<Compensation>> histories = entityCaches.compensationHistories().getAll(employeeIds,
+                this::loadHistories);
+
+        LocalDate today = LocalDate.now();
+        Map<String, Compensation> compensations = new HashMap<>();
+        for (Map.Entry<String, List<Compensation>> history : histories.entrySet()) {
+            Compensation compensation = findInEffect(history.getValue(), today);
+            if (compensation != null) {
+                compensations.put(history.getKey(), compensation);
+            }
+        }
+
+        return BatchReads.toResult(employeeIds, compensations);
+    }
+
+    @Override
+    public List<Compensation> readHistory(String id) {
+        LOG.debug("Reading compensation history for employee with id [{}]", id);
+
+        List<Compensation> history = readCachedHistory(id);
+
+        if (history.isEmpty()) {
+            throw new RuntimeException("Invalid employeeId: " + id);
+        }
+
+        return history;
+    }
+
+    /**
+     * method to compute salary statistics over the current compensation of every direct and indirect report of an
+     * employee. The reports are retrieved in one pass, and their current compensations with one aggregation per
+     * batch of reports instead of one read per employee.
+     * @param id : employeeId of the manager
+     * @param groupBy : optional "department" or "position" to additionally compute the statistics per group
+     * @return statistics over all reports and, if requested, per group
+     */
+    @Override
+    public CompensationSummary getCompensationSummary(String id, String groupBy) {
+        LOG.debug("Getting compensation summary for employee with id [{}] grouped by [{}]", id, groupBy);
+
+        Function<Employee, String> groupKey = null;
+        if ("department".equals(groupBy)) {
+            groupKey = Employee::getDepartment;
+        } else if ("position".equals(groupBy)) {
+            groupKey = Employee::getPosition;
+        } else if (groupBy != null) {
+            throw new RuntimeException("Invalid compensation summary groupBy: " + groupBy);
+        }
+
+        List<Employee> reports = employeeService.getReports(id);
+        Map<String, Integer> salaries = readCurrentSalaries(reports);
+
+        int[] allSalaries = new int[salaries.size()];
+        int salaryCount = 0;
+        Map<String, int[]> groupSalaries = new TreeMap<>();
+        Map<String, Integer> groupCounts = new HashMap<>();
+        for (Employee report : reports) {
+            Integer salary = salaries.get(report.getEmployeeId());
+            if (salary == null) {
+                continue;
+            }
+            allSalaries[salaryCount++] = salary;
+
+            if (groupKey != null) {
+                String group = groupKey.apply(report);
+                group = group != null ? group : UNASSIGNED_GROUP;
+
+                int groupCount = groupCounts.getOrDefault(group, 0);
+                int[] values = groupSalaries.get(group);
+                if (values == null || values.length == groupCount) {
+                    values = values == null ? new int[16] : Arrays.copyOf(values, groupCount * 2);
+                    groupSalaries.put(group, values);
+                }
+                values[groupCount] = salary;
+                groupCounts.put(group, groupCount + 1);
+            }
+        }
+
+        CompensationSummary summary = new CompensationSummary();
+        summary.setEmployeeId(id);
+        summary.setNumberOfReports(reports.size());
+        summary.setReportsWithoutCompensation(reports.size() - salaryCount);
+        summary.setStatistics(computeStatistics(allSalaries, salaryCount));
+
+        if (groupKey != null) {
+            Map<String, CompensationStatistics> groups = new TreeMap<>();
+            for (Map.Entry<String, int[]> group : groupSalaries.entrySet()) {
+                groups.put(group.getKey(), computeStatistics(group.getValue(), groupCounts.get(group.getKey())));
+            }
+            summary.setGroupBy(groupBy);
+            summary.setGroups(groups);
+        }
+
+        return summary;
+    }
+
+    /**
+     * method to retrieve the salary in effect today for a list of employees. Every batch is resolved by a single
+     * aggregation which walks the (employeeId, effectiveDate) index and keeps the latest entry per employee.
+     * @param employees : Employee objects which only need to contain the employee ID
+     * @return salaries keyed by employeeId; employees without a current compensation are absent
+     */
+    private Map<String, Integer> readCurrentSalaries(List<Employee> employees) {
+        Map<String, Integer> salaries = new HashMap<>();
+        LocalDate today = LocalDate.now();
+
+        List<String> employeeIds = new ArrayList<>(Math.min(employees.size(), SUMMARY_BATCH_SIZE));
+        for (int i = 0; i < employees.size(); i++) {
+            employeeIds.add(employees.get(i).getEmployeeId());
+            if (employeeIds.size() < SUMMARY_BATCH_SIZE && i < employees.size() - 1) {
+                continue;
+            }
+
+            TypedAggregation<Compensation> aggregation = Aggregation.newAggregation(Compensation.class,
+                    Aggregation.match(where("employeeId").in(employeeIds).and("effectiveDate").lte(today)),
+                    Aggregation.sort(Sort.by(Sort.Order.asc("employeeId"), Sort.Order.desc("effectiveDate"))),
+                    Aggregation.group("employeeId").first("salary").as("salary"));
+
+            for (Document salary : mongoTemplate.aggregate(aggregation, Document.class)) {
+                salaries.put(salary.getString("_id"), ((Number) salary.get("salary")).intValue());
+            }
+            employeeIds.clear();
+        }
+
+        return salaries;
+    }
+
+    /**
+     * method to retrieve the compensation history of an employee, which answers the current, as of and history reads
+     * alike; it is retrieved with a single range scan of the (employeeId, effectiveDate) index when not cached
+     * @param id : employeeId of the employee
+     * @return the compensation history, oldest entry first
+     */
+    private List<Compensation> readCachedHistory(String id) {
+        return entityCaches.compensationHistories().get(id,
+                compensationRepository::findByEmployeeIdOrderByEffectiveDateAsc);
+    }
+
+    /**
+     * @return the compensation histories keyed by employeeId, oldest entry first; employees without a compensation
+     * are absent
+     */
+    private Map<String, List<Compensation>> loadHistories(List<String> employeeIds) {
+        Map<String, List<Compensation>> histories = new HashMap<>();
+        for (Compensation compensation : compensationRepository.findByEmployeeIdInOrderByEffectiveDateAsc(
+                employeeIds)) {
+            histories.computeIfAbsent(compensation.getEmployeeId(), id -> new ArrayList<>()).add(compensation);
+        }
+
+        return histories;
+    }
+
+    /**
+     * @return the entry of the history with the latest effectiveDate on or before the given date, or null
+     */
+    private static Compensation findInEffect(List<Compensation> history, LocalDate date) {
+        for (int i = history.size() - 1; i >= 0; i--) {
+            LocalDate effectiveDate = history.get(i).getEffectiveDate();
+            if (effectiveDate != null && !effectiveDate.isAfter(date)) {
+                return history.get(i);
+            }
+        }
+
+        return null;
+    }
+
+    private static CompensationStatistics computeStatistics(int[] salaries, int count) {
+        CompensationStatistics statistics = new CompensationStatistics();
+        statistics.setCount(count);
+        if (count == 0) {
+            return statistics;
+        }
+
+        int[] sortedSalaries = Arrays.copyOf(salaries, count);
+        Arrays.sort(sortedSalaries);
+
+        long total = 0;
+        for (int salary : sortedSalaries) {
+            total += salary;
+        }
+
+        statistics.setTotal(total);
+        statistics.setAverage((double) total / count);
+        statistics.setMin(sortedSalaries[0]);
+        statistics.setMax(sortedSalaries[count - 1]);
+        statistics.setP50(percentile(sortedSalaries, 50));
+        statistics.setP90(percentile(sortedSalaries, 90));
+        statistics.setP99(percentile(sortedSalaries, 99));
+
+        return statistics;
+    }
+
+    // nearest-rank percentile of a sorted, non-empty array
+    private static int percentile(int[] sortedValues, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedValues.length);
+        return sortedValues[Math.max(rank, 1) - 1];
+    }
 }
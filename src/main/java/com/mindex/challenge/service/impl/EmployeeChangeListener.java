@@ -0,0 +1,41 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.service.OrgGraphCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops in-memory views of the employee collection whenever an Employee is written through the repository or the
+ * MongoTemplate, including the writes made by DataBootstrap
+ */
+@Component
+public class EmployeeChangeListener extends AbstractMongoEventListener<Employee> {
+
+    @Autowired
+    private OrgGraphCacheService orgGraphCacheService;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private ReportingStructureCache reportingStructureCache;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Employee> event) {
+        entityCaches.employees().invalidate(event.getSource().getEmployeeId());
+        orgGraphCacheService.invalidate();
+        reportingStructureCache.invalidate();
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Employee> event) {
+        // the event only carries the delete query
+        entityCaches.employees().invalidateAll();
+        orgGraphCacheService.invalidate();
+        reportingStructureCache.invalidate();
+    }
+}
@@ -0,0 +1,303 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.dao.EmployeeHierarchyRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeHierarchy;
+import com.mindex.challenge.service.EmployeeHierarchyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@Service
+public class EmployeeHierarchyServiceImpl implements EmployeeHierarchyService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmployeeHierarchyServiceImpl.class);
+
+    @Autowired
+    private EmployeeHierarchyRepository employeeHierarchyRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private ReportingStructureCache reportingStructureCache;
+
+    @Override
+    public EmployeeHierarchy read(String employeeId) {
+        LOG.debug("Getting employee hierarchy with id [{}]", employeeId);
+
+        return employeeHierarchyRepository.findByEmployeeId(employeeId);
+    }
+
+    @Override
+    public List<EmployeeHierarchy> readDescendants(String employeeId) {
+        LOG.debug("Getting employee hierarchy below id [{}]", employeeId);
+
+        return employeeHierarchyRepository.findByAncestors(employeeId);
+    }
+
+    /**
+     * Recomputes the whole index from the Employee documents. Employees which are part of a cycle, which report to
+     * more than one manager, or which are above a missing employee are left out of the index, so that callers fall
+     * back to walking the hierarchy for them. The managerId of every Employee is brought in line with the
+     * directReports lists as well; an employee listed by more than one manager keeps the first one found.
+     */
+    @Override
+    public void rebuild() {
+        LOG.debug("Rebuilding employee hierarchy");
+
+        Map<String, List<String>> directReportIds = new HashMap<>();
+        Map<String, String> storedManagerIds = new HashMap<>();
+        Map<String, String> managerIds = new HashMap<>();
+        for (Employee employee : employeeRepository.findAll()) {
+            List<String> employeeIds = employeeIds(employee.getDirectReports());
+            directReportIds.put(employee.getEmployeeId(), employeeIds);
+            storedManagerIds.put(employee.getEmployeeId(), employee.getManagerId());
+            for (String employeeId : employeeIds) {
+                managerIds.putIfAbsent(employeeId, employee.getEmployeeId());
+            }
+        }
+
+        Map<String, EmployeeHierarchy> hierarchies = new HashMap<>();
+        Set<String> inconsistentEmployeeIds = new HashSet<>();
+        for (String employeeId : directReportIds.keySet()) {
+            if (!managerIds.containsKey(employeeId)) {
+                indexSubtree(employeeId, directReportIds, hierarchies, inconsistentEmployeeIds);
+            }
+        }
+        hierarchies.keySet().removeAll(inconsistentEmployeeIds);
+
+        employeeHierarchyRepository.deleteAll();
+        employeeHierarchyRepository.saveAll(hierarchies.values());
+
+        LOG.debug("Indexed [{}] employees, [{}] left out of the employee hierarchy", hierarchies.size(),
+                directReportIds.size() - hierarchies.size());
+
+        updateManagerIds(storedManagerIds, managerIds);
+        reportingStructureCache.invalidate();
+    }
+
+    @Override
+    public void validateDirectReports(String employeeId, List<Employee> previousDirectReports,
+                                      List<Employee> directReports) {
+        List<String> directReportIds = employeeIds(directReports);
+        if (new HashSet<>(directReportIds).size() != directReportIds.size()) {
+            LOG.error("Employee [{}] lists the same direct report more than once", employeeId);
+            throw new RuntimeException("Employee reporting structure contains a cycle");
+        }
+
+        EmployeeHierarchy hierarchy = employeeHierarchyRepository.findByEmployeeId(employeeId);
+        for (String addedEmployeeId : difference(directReportIds, employeeIds(previousDirectReports))) {
+            if (addedEmployeeId.equals(employeeId)
+                    || (hierarchy != null && hierarchy.getAncestors().contains(addedEmployeeId))) {
+                LOG.error("Employee [{}] cannot report to its own report [{}]", addedEmployeeId, employeeId);
+                throw new RuntimeException("Employee reporting structure contains a cycle");
+            }
+
+            EmployeeHierarchy addedHierarchy = employeeHierarchyRepository.findByEmployeeId(addedEmployeeId);
+            if (addedHierarchy == null) {
+                // employees outside of the index are only checked for existence, the index is rebuilt after the write
+                if (!employeeRepository.existsById(addedEmployeeId)) {
+                    throw new RuntimeException("Invalid employeeId: " + addedEmployeeId);
+                }
+            } else if (addedHierarchy.getManagerId() != null && !addedHierarchy.getManagerId().equals(employeeId)) {
+                LOG.error("Employee [{}] already reports to [{}]", addedEmployeeId, addedHierarchy.getManagerId());
+                throw new RuntimeException("Employee " + addedEmployeeId + " already reports to "
+                        + addedHierarchy.getManagerId());
+            }
+        }
+    }
+
+    @Override
+    public void updateDirectReports(String employeeId, List<Employee> previousDirectReports,
+                                    List<Employee> directReports) {
+        List<String> previousDirectReportIds = employeeIds(previousDirectReports);
+        List<String> directReportIds = employeeIds(directReports);
+        List<String> removedEmployeeIds = difference(previousDirectReportIds, directReportIds);
+        List<String> addedEmployeeIds = difference(directReportIds, previousDirectReportIds);
+
+        EmployeeHierarchy hierarchy = employeeHierarchyRepository.findByEmployeeId(employeeId);
+        if (hierarchy == null) {
+            if (!previousDirectReportIds.isEmpty()
+                    || !employeeRepository.findByDirectReportsEmployeeId(employeeId).isEmpty()) {
+                rebuild();
+                return;
+            }
+
+            // newly created employee, which starts at the top of its own hierarchy
+            hierarchy = employeeHierarchyRepository.save(new EmployeeHierarchy(employeeId, new ArrayList<>()));
+        }
+
+        List<EmployeeHierarchy> removedHierarchies = readAll(removedEmployeeIds);
+        List<EmployeeHierarchy> addedHierarchies = readAll(addedEmployeeIds);
+        if (removedHierarchies == null || addedHierarchies == null) {
+            rebuild();
+            return;
+        }
+
+        // employeeIds of every employee whose subtree contains the updated employee's direct reports
+        List<String> prefix = new ArrayList<>(hierarchy.getAncestors());
+        prefix.add(employeeId);
+
+        for (EmployeeHierarchy removedHierarchy : removedHierarchies) {
+            incrementDescendantCounts(prefix, -(removedHierarchy.getDescendantCount() + 1));
+            moveSubtree(removedHierarchy, Collections.<String>emptyList());
+        }
+
+        for (EmployeeHierarchy addedHierarchy : addedHierarchies) {
+            incrementDescendantCounts(prefix, addedHierarchy.getDescendantCount() + 1);
+            moveSubtree(addedHierarchy, prefix);
+        }
+    }
+
+    /**
+     * method to index every employee reachable from a top level employee with an iterative Depth First traversal
+     * @param rootEmployeeId : employeeId of an employee without a manager
+     * @param directReportIds : employeeIds of the direct reports of every employee
+     * @param hierarchies : index being built, keyed by employeeId
+     * @param inconsistentEmployeeIds : employees which cannot be indexed
+     */
+    private static void indexSubtree(String rootEmployeeId, Map<String, List<String>> directReportIds,
+                                     Map<String, EmployeeHierarchy> hierarchies, Set<String> inconsistentEmployeeIds) {
+        List<String> path = new ArrayList<>();
+        Deque<Iterator<String>> directReportIterators = new ArrayDeque<>();
+
+        hierarchies.put(rootEmployeeId, new EmployeeHierarchy(rootEmployeeId, new ArrayList<>()));
+        path.add(rootEmployeeId);
+        directReportIterators.push(directReportIds.get(rootEmployeeId).iterator());
+
+        while (!directReportIterators.isEmpty()) {
+            Iterator<String> directReportIterator = directReportIterators.peek();
+
+            if (!directReportIterator.hasNext()) {
+                directReportIterators.pop();
+                String employeeId = path.remove(path.size() - 1);
+
+                int descendantCount = 0;
+                for (String directReportId : directReportIds.get(employeeId)) {
+                    EmployeeHierarchy directReportHierarchy = hierarchies.get(directReportId);
+                    if (directReportHierarchy != null) {
+                        descendantCount += directReportHierarchy.getDescendantCount() + 1;
+                    }
+                }
+                hierarchies.get(employeeId).setDescendantCount(descendantCount);
+                continue;
+            }
+
+            String employeeId = directReportIterator.next();
+            if (!directReportIds.containsKey(employeeId)) {
+                // the reporting structure of every employee above a missing employee is invalid
+                inconsistentEmployeeIds.addAll(path);
+            } else if (hierarchies.containsKey(employeeId)) {
+                // reached twice: the counts of every employee above it on both paths would be wrong
+                inconsistentEmployeeIds.add(employeeId);
+                inconsistentEmployeeIds.addAll(hierarchies.get(employeeId).getAncestors());
+                inconsistentEmployeeIds.addAll(path);
+            } else {
+                hierarchies.put(employeeId, new EmployeeHierarchy(employeeId, new ArrayList<>(path)));
+                path.add(employeeId);
+                directReportIterators.push(directReportIds.get(employeeId).iterator());
+            }
+        }
+    }
+
+    /**
+     * method to write the managerId of every employee whose stored value differs, with a single bulk operation
+     * @param storedManagerIds : managerId stored on every Employee document, keyed by employeeId
+     * @param managerIds : managerId derived from the directReports lists, keyed by employeeId
+     */
+    private void updateManagerIds(Map<String, String> storedManagerIds, Map<String, String> managerIds) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Employee.class);
+        int updateCount = 0;
+        for (Map.Entry<String, String> storedManagerId : storedManagerIds.entrySet()) {
+            String managerId = managerIds.get(storedManagerId.getKey());
+            if (Objects.equals(managerId, storedManagerId.getValue())) {
+                continue;
+            }
+
+            Update update = managerId != null
+                    ? new Update().set("managerId", managerId) : new Update().unset("managerId");
+            bulkOperations.updateOne(query(where("_id").is(storedManagerId.getKey())), update);
+            updateCount++;
+        }
+
+        if (updateCount > 0) {
+            bulkOperations.execute();
+            entityCaches.employees().invalidateAll();
+        }
+        LOG.debug("Updated the managerId of [{}] employees", updateCount);
+    }
+
+    private void incrementDescendantCounts(List<String> employeeIds, int delta) {
+        mongoTemplate.updateMulti(query(where("_id").in(employeeIds)), new Update().inc("descendantCount", delta),
+                EmployeeHierarchy.class);
+    }
+
+    /**
+     * method to attach a subtree below new ancestors, rewriting the ancestor path of every employee in it
+     * @param subtreeRoot : hierarchy of the employee at the top of the subtree
+     * @param ancestors : new ancestors of the employee at the top of the subtree
+     */
+    private void moveSubtree(EmployeeHierarchy subtreeRoot, List<String> ancestors) {
+        int previousDepth = subtreeRoot.getAncestors().size();
+
+        List<EmployeeHierarchy> subtree = employeeHierarchyRepository.findByAncestors(subtreeRoot.getEmployeeId());
+        for (EmployeeHierarchy descendant : subtree) {
+            List<String> descendantAncestors = new ArrayList<>(ancestors);
+            descendantAncestors.addAll(descendant.getAncestors().subList(previousDepth, descendant.getAncestors().size()));
+            descendant.setAncestors(descendantAncestors);
+        }
+
+        subtreeRoot.setAncestors(new ArrayList<>(ancestors));
+        subtreeRoot.setManagerId(ancestors.isEmpty() ? null : ancestors.get(ancestors.size() - 1));
+        subtree.add(subtreeRoot);
+
+        employeeHierarchyRepository.saveAll(subtree);
+    }
+
+    /**
+     * @return hierarchies of the given employees, or null if any of them is not indexed
+     */
+    private List<EmployeeHierarchy> readAll(List<String> employeeIds) {
+        List<EmployeeHierarchy> hierarchies = new ArrayList<>();
+        for (EmployeeHierarchy hierarchy : employeeHierarchyRepository.findAllById(employeeIds)) {
+            hierarchies.add(hierarchy);
+        }
+
+        return hierarchies.size() == employeeIds.size() ? hierarchies : null;
+    }
+
+    private static List<String> employeeIds(List<Employee> employees) {
+        List<String> employeeIds = new ArrayList<>();
+        if (employees != null) {
+            for (Employee employee : employees) {
+                employeeIds.add(employee.getEmployeeId());
+            }
+        }
+
+        return employeeIds;
+    }
+
+    private static List<String> difference(List<String> employeeIds, List<String> excludedEmployeeIds) {
+        List<String> difference = new ArrayList<>(employeeIds);
+        difference.removeAll(excludedEmployeeIds);
+
+        return difference;
+    }
+}
@@ -0,0 +1,254 @@
+package com.mindex.challenge.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.Change;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeImportError;
+import com.mindex.challenge.data.EmployeeImportResult;
+import com.mindex.challenge.service.ChangeLogService;
+import com.mindex.challenge.service.EmployeeHierarchyService;
+import com.mindex.challenge.service.EmployeeImportService;
+import com.mindex.challenge.service.OrgGraphCacheService;
+import com.mongodb.BulkWriteError;
+import com.mongodb.MongoBulkWriteException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Service
+public class EmployeeImportServiceImpl implements EmployeeImportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmployeeImportServiceImpl.class);
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmployeeHierarchyService employeeHierarchyService;
+
+    @Autowired
+    private OrgGraphCacheService orgGraphCacheService;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Value("${employee.import.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Parses employees incrementally and inserts them in batches through bulk operations, so that only one batch of
+     * Employee objects is held at a time. In ordered mode the import stops at the first failing employee; in
+     * unordered mode every employee is attempted.
+     * @param inputStream : JSON array of Employee objects, or one Employee object per line (NDJSON), optionally gzip
+     *                    compressed
+     * @param ordered : whether to stop at the first failing employee
+     * @return counts, per employee errors, unresolved directReports references and throughput of the import
+     */
+    @Override
+    public EmployeeImportResult importEmployees(InputStream inputStream, boolean ordered) {
+        LOG.debug("Importing employees in [{}] mode with batches of [{}]", ordered ? "ordered" : "unordered",
+                batchSize);
+
+        long start = System.currentTimeMillis();
+        EmployeeImportResult result = new EmployeeImportResult();
+        Set<String> importedEmployeeIds = new HashSet<>();
+        Set<String> referencedEmployeeIds = new HashSet<>();
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(decompress(inputStream))) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            } else if (token != JsonToken.START_OBJECT && token != null) {
+                throw new RuntimeException("Employee import expects a JSON array or NDJSON of employees");
+            }
+
+            List<Employee> batch = new ArrayList<>(batchSize);
+            boolean failed = false;
+            while (!failed && token == JsonToken.START_OBJECT) {
+                Employee employee = parser.readValueAs(Employee.class);
+                if (StringUtils.isEmpty(employee.getEmployeeId())) {
+                    employee.setEmployeeId(UUID.randomUUID().toString());
+                }
+
+                // bulk inserts bypass the version initialization of the repository
+                employee.setVersion(0L);
+                batch.add(employee);
+
+                if (batch.size() == batchSize) {
+                    failed = insertBatch(batch, ordered, result, importedEmployeeIds, referencedEmployeeIds)
+                            && ordered;
+                    batch.clear();
+                }
+                token = parser.nextToken();
+            }
+            if (!failed && !batch.isEmpty()) {
+                insertBatch(batch, ordered, result, importedEmployeeIds, referencedEmployeeIds);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Employee import failed", e);
+        } finally {
+            LOG.debug("Parsed and inserted [{}] employees in [{}] ms", result.getInserted(),
+                    System.currentTimeMillis() - start);
+
+            // a failed batch may still have written some of its employees
+            if (result.getReceived() > 0) {
+                long rebuildStart = System.currentTimeMillis();
+                employeeHierarchyService.rebuild();
+                orgGraphCacheService.invalidate();
+                LOG.debug("Rebuilt employee hierarchy in [{}] ms", System.currentTimeMillis() - rebuildStart);
+            }
+        }
+
+        referencedEmployeeIds.removeAll(importedEmployeeIds);
+        result.setUnresolvedReferences(findMissingEmployeeIds(referencedEmployeeIds));
+
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        result.setEmployeesPerSecond(result.getInserted() * 1000.0 / Math.max(result.getElapsedMillis(), 1));
+
+        LOG.debug("Imported [{}] of [{}] employees in [{}] ms, [{}] unresolved directReports references",
+                result.getInserted(), result.getReceived(), result.getElapsedMillis(),
+                result.getUnresolvedReferences().size());
+
+        return result;
+    }
+
+    /**
+     * method to insert a batch of employees, logged as one bulk-create change of the inserted ones
+     * @return whether any employee of the batch failed
+     */
+    private boolean insertBatch(List<Employee> batch, boolean ordered, EmployeeImportResult result,
+                                Set<String> importedEmployeeIds, Set<String> referencedEmployeeIds) {
+        long batchStart = result.getReceived();
+        result.setReceived(batchStart + batch.size());
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(
+                ordered ? BulkOperations.BulkMode.ORDERED : BulkOperations.BulkMode.UNORDERED, Employee.class);
+        bulkOperations.insert(batch);
+
+        // an ordered import does not attempt the employees after the first failure
+        int attempted = batch.size();
+        Map<Integer, String> failures = new TreeMap<>();
+        try {
+            bulkOperations.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error.getMessage());
+            }
+        } catch (DataIntegrityViolationException e) {
+            // MongoTemplate translates the MongoBulkWriteException of duplicate keys and other write errors
+            if (!(e.getCause() instanceof MongoBulkWriteException)) {
+                throw e;
+            }
+            for (com.mongodb.bulk.BulkWriteError error : ((MongoBulkWriteException) e.getCause()).getWriteErrors()) {
+                failures.put(error.getIndex(), error.getMessage());
+            }
+        }
+
+        Set<Integer> failedIndexes = failures.keySet();
+        for (Map.Entry<Integer, String> failure : failures.entrySet()) {
+            addError(result, batchStart + failure.getKey(), batch.get(failure.getKey()).getEmployeeId(),
+                    failure.getValue());
+        }
+        if (ordered && !failedIndexes.isEmpty()) {
+            attempted = Collections.min(failedIndexes) + 1;
+        }
+
+        List<Employee> insertedEmployees = new ArrayList<>(attempted - failedIndexes.size());
+        for (int i = 0; i < attempted; i++) {
+            if (failedIndexes.contains(i)) {
+                continue;
+            }
+
+            Employee employee = batch.get(i);
+            insertedEmployees.add(employee);
+            importedEmployeeIds.add(employee.getEmployeeId());
+            if (employee.getDirectReports() != null) {
+                for (Employee directReport : employee.getDirectReports()) {
+                    referencedEmployeeIds.add(directReport.getEmployeeId());
+                }
+            }
+        }
+
+        if (!insertedEmployees.isEmpty()) {
+            changeLogService.append(Change.EMPLOYEE, Change.BULK_CREATE, null, insertedEmployees);
+        }
+
+        result.setInserted(result.getInserted() + insertedEmployees.size());
+        result.setFailed(result.getReceived() - result.getInserted());
+
+        return !failedIndexes.isEmpty();
+    }
+
+    /**
+     * @return the content of the stream, decompressed if it starts with the gzip magic number
+     */
+    private static InputStream decompress(InputStream inputStream) throws IOException {
+        BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
+        bufferedInputStream.mark(2);
+        int magic = bufferedInputStream.read() | (bufferedInputStream.read() << 8);
+        bufferedInputStream.reset();
+
+        return magic == GZIPInputStream.GZIP_MAGIC ? new GZIPInputStream(bufferedInputStream) : bufferedInputStream;
+    }
+
+    private static void addError(EmployeeImportResult result, long index, String employeeId, String message) {
+        LOG.error("Importing employee [{}] at index [{}] failed: {}", employeeId, index, message);
+
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new EmployeeImportError(index, employeeId, message));
+        }
+    }
+
+    /**
+     * @return the employeeIds for which no Employee is stored, looked up in batches
+     */
+    private List<String> findMissingEmployeeIds(Set<String> employeeIds) {
+        List<String> missingEmployeeIds = new ArrayList<>();
+        List<String> batch = new ArrayList<>(batchSize);
+
+        Iterator<String> employeeIdIterator = employeeIds.iterator();
+        while (employeeIdIterator.hasNext()) {
+            batch.add(employeeIdIterator.next());
+
+            if (batch.size() == batchSize || !employeeIdIterator.hasNext()) {
+                Query query = new Query(where("_id").in(batch));
+                query.fields().include("_id");
+
+                Set<String> storedEmployeeIds = new HashSet<>();
+                for (Employee employee : mongoTemplate.find(query, Employee.class)) {
+                    storedEmployeeIds.add(employee.getEmployeeId());
+                }
+                for (String employeeId : batch) {
+                    if (!storedEmployeeIds.contains(employeeId)) {
+                        missingEmployeeIds.add(employeeId);
+                    }
+                }
+                batch.clear();
+            }
+        }
+
+        return missingEmployeeIds;
+    }
+}
@@ -0,0 +1,41 @@
+package com.mindex.challenge.service.impl;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.StringUtils;
+
+/**
+ * Query of the employee search, shared by the blocking and the reactive employee services
+ */
+final class EmployeeSearches {
+
+    private EmployeeSearches() {
+    }
+
+    /**
+     * Every search is answered by an index: department, or the (lastName, firstName) compound index; the other given
+     * fields narrow it down
+     * @param department : department of the employees, may be empty
+     * @param lastName : lastName of the employees, may be empty
+     * @param firstName : firstName of the employees, may be empty
+     * @return the query matching every non-empty field
+     */
+    static Query query(String department, String lastName, String firstName) {
+        if (StringUtils.isEmpty(department) && StringUtils.isEmpty(lastName)) {
+            throw new RuntimeException("Employee search requires a department or a lastName");
+        }
+
+        Criteria criteria = new Criteria();
+        if (!StringUtils.isEmpty(department)) {
+            criteria = criteria.and("department").is(department);
+        }
+        if (!StringUtils.isEmpty(lastName)) {
+            criteria = criteria.and("lastName").is(lastName);
+        }
+        if (!StringUtils.isEmpty(firstName)) {
+            criteria = criteria.and("firstName").is(firstName);
+        }
+
+        return Query.query(criteria);
+    }
+}
@@ -1,30 +1,133 @@
 package com.mindex.challenge.service.impl;
 
 import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.BatchReadResult;
+import com.mindex.challenge.data.Change;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeHierarchy;
 import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.ChangeLogService;
+import com.mindex.challenge.service.EmployeeHierarchyService;
 import com.mindex.challenge.service.EmployeeService;
+import com.mindex.challenge.service.OrgGraphCacheService;
+import com.mindex.challenge.service.ReportingStructureVisitor;
+import com.mindex.challenge.service.TraversalMode;
+import com.mongodb.MongoCommandException;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
 @Service
 public class EmployeeServiceImpl implements EmployeeService {
 
     private static final Logger LOG = LoggerFactory.getLogger(EmployeeServiceImpl.class);
+    private static final String GRAPH_LOOKUP_REPORTS_FIELD = "reports";
+    private static final int READ_BATCH_SIZE = 10000;
+
+    // "Unrecognized pipeline stage name", e.g. $graphLookup on the embedded MongoServer
+    private static final int UNRECOGNIZED_PIPELINE_STAGE = 40324;
+
+    // fields which can be changed without touching the hierarchy
+    private static final Set<String> PATCHABLE_FIELDS = new HashSet<>(Arrays.asList("firstName", "lastName",
+            "position", "department"));
 
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private EmployeeHierarchyService employeeHierarchyService;
+
+    @Autowired
+    private OrgGraphCacheService orgGraphCacheService;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private ReportingStructureCache reportingStructureCache;
+
+    @Autowired
+    private TraversalMetrics traversalMetrics;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Value("${employee.reporting-structure.traversal:SEQUENTIAL}")
+    private TraversalMode traversalMode;
+
+    // only present when virtual-threads.enabled is set
+    @Autowired(required = false)
+    @Qualifier("virtualThreadExecutor")
+    private ExecutorService virtualThreadExecutor;
+
+    @Value("${virtual-threads.parallel-fetch-size:100}")
+    private int parallelFetchSize;
+
+    // 0 uses one thread per available processor
+    @Value("${employee.reporting-structure.fork-join-parallelism:0}")
+    private int forkJoinParallelism;
+
+    private ForkJoinPool forkJoinPool;
+
+    // cleared once the database rejected $graphLookup, after which GRAPH_LOOKUP is answered by the BATCHED traversal
+    private volatile boolean graphLookupSupported = true;
+
+    @PostConstruct
+    public void init() {
+        forkJoinPool = new ForkJoinPool(forkJoinParallelism > 0 ? forkJoinParallelism
+                : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        forkJoinPool.shutdownNow();
+    }
+
     @Override
     public Employee create(Employee employee) {
         LOG.debug("Creating employee [{}]", employee);
 
         employee.setEmployeeId(UUID.randomUUID().toString());
-        employeeRepository.insert(employee);
+        employeeHierarchyService.validateDirectReports(employee.getEmployeeId(), null, employee.getDirectReports());
+
+        // managerId follows the directReports of the manager and is never taken from the request
+        employee.setManagerId(null);
+        employee.setVersion(null);
+
+        // the insert initializes the version
+        employee = employeeRepository.insert(employee);
+        updateManagerIds(employee.getEmployeeId(), null, employee.getDirectReports());
+        employeeHierarchyService.updateDirectReports(employee.getEmployeeId(), null, employee.getDirectReports());
+        reportingStructureCache.invalidate();
+        changeLogService.append(Change.EMPLOYEE, Change.CREATE, employee.getEmployeeId(), employee);
 
         return employee;
     }
@@ -33,7 +136,7 @@ public class EmployeeServiceImpl implements EmployeeService {
     public Employee read(String id) {
         LOG.debug("Getting employee with id [{}]", id);
 
-        Employee employee = employeeRepository.findByEmployeeId(id);
+        Employee employee = entityCaches.employees().get(id, employeeRepository::findByEmployeeId);
 
         if (employee == null) {
             throw new RuntimeException("Invalid employeeId: " + id);
@@ -42,16 +145,350 @@ public class EmployeeServiceImpl implements EmployeeService {
         return employee;
     }
 
+    /**
+     * method to read several employees at once; the ones which are not cached are retrieved with a single
+     * repository call
+     * @param ids : employeeIds of the employees, at most BatchReads.MAX_IDS distinct ones
+     * @return the stored employees in request order, and the employeeIds without an employee
+     */
+    @Override
+    public BatchReadResult<Employee> readAll(List<String> ids) {
+        List<String> employeeIds = BatchReads.distinctIds(ids);
+        LOG.debug("Getting [{}] employees", employeeIds.size());
+
+        return BatchReads.toResult(employeeIds, entityCaches.employees().getAll(employeeIds, this::loadAll));
+    }
+
+    @Override
+    public List<Employee> search(String department, String lastName, String firstName) {
+        LOG.debug("Searching employees with department [{}], lastName [{}] and firstName [{}]", department, lastName,
+                firstName);
+
+        return mongoTemplate.find(EmployeeSearches.query(department, lastName, firstName), Employee.class);
+    }
+
     @Override
     public Employee update(Employee employee) {
         LOG.debug("Updating employee [{}]", employee);
 
-        return employeeRepository.save(employee);
+        Employee existingEmployee = employeeRepository.findByEmployeeId(employee.getEmployeeId());
+        List<Employee> previousDirectReports = existingEmployee != null ? existingEmployee.getDirectReports() : null;
+        employeeHierarchyService.validateDirectReports(employee.getEmployeeId(), previousDirectReports,
+                employee.getDirectReports());
+
+        employee.setManagerId(existingEmployee != null ? existingEmployee.getManagerId() : null);
+
+        if (existingEmployee != null) {
+            if (existingEmployee.getVersion() == null) {
+                existingEmployee.setVersion(initializeVersion(employee.getEmployeeId()));
+            }
+
+            // without a version from the client the write is still rejected if the employee changes while updating
+            if (employee.getVersion() == null) {
+                employee.setVersion(existingEmployee.getVersion());
+            }
+        }
+
+        Employee updatedEmployee = employeeRepository.save(employee);
+        updateManagerIds(employee.getEmployeeId(), previousDirectReports, employee.getDirectReports());
+        employeeHierarchyService.updateDirectReports(employee.getEmployeeId(), previousDirectReports,
+                employee.getDirectReports());
+
+        // also bumped by the save itself, this covers the managerId and hierarchy index writes made after it
+        reportingStructureCache.invalidate();
+        changeLogService.append(Change.EMPLOYEE, Change.UPDATE, updatedEmployee.getEmployeeId(), updatedEmployee);
+
+        return updatedEmployee;
+    }
+
+    /**
+     * Applies field level changes with a single $set, instead of rewriting the whole document including its
+     * directReports. The version is incremented with the same write.
+     * @param id : employeeId of the employee to change
+     * @param fields : new values of scalar fields (firstName, lastName, position, department)
+     * @param expectedVersion : if not null, the change is only applied to this version of the employee
+     * @return the changed employee
+     */
+    @Override
+    public Employee patch(String id, Map<String, Object> fields, Long expectedVersion) {
+        LOG.debug("Patching employee with id [{}] and fields [{}]", id, fields);
+
+        Update update = new Update();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            if (!PATCHABLE_FIELDS.contains(field.getKey())
+                    || (field.getValue() != null && !(field.getValue() instanceof String))) {
+                LOG.error("Employee field [{}] cannot be patched with [{}]", field.getKey(), field.getValue());
+                throw new RuntimeException("Invalid employee field: " + field.getKey());
+            }
+            update.set(field.getKey(), field.getValue());
+        }
+        update.inc("version", 1);
+
+        Query query = query(where("_id").is(id));
+        if (expectedVersion != null) {
+            query.addCriteria(where("version").is(expectedVersion));
+        }
+
+        Employee patchedEmployee = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Employee.class);
+        if (patchedEmployee == null) {
+            read(id);
+            throw new OptimisticLockingFailureException("Employee " + id + " is no longer at version "
+                    + expectedVersion);
+        }
+
+        // findAndModify does not publish the events which EmployeeChangeListener relies on
+        entityCaches.employees().invalidate(id);
+        orgGraphCacheService.invalidate();
+        reportingStructureCache.invalidate();
+        changeLogService.append(Change.EMPLOYEE, Change.PATCH, id, patchedEmployee);
+
+        return patchedEmployee;
     }
 
     @Override
     public ReportingStructure getEmployeeReportingStructure(String id) {
-        LOG.debug("Getting reporting structure for employee with id [{}]", id);
+        return reportingStructureCache.get(id, "full", () -> getEmployeeReportingStructure(id, traversalMode));
+    }
+
+    @Override
+    public ReportingStructure getEmployeeReportingStructure(String id, TraversalMode traversalMode) {
+        LOG.debug("Getting reporting structure for employee with id [{}] using [{}] traversal", id, traversalMode);
+
+        return traversalMetrics.record(id, traversalMode, () -> traverse(id, traversalMode));
+    }
+
+    private ReportingStructure traverse(String id, TraversalMode traversalMode) {
+        switch (traversalMode) {
+            case BATCHED:
+                return getEmployeeReportingStructureBatched(id);
+            case GRAPH_LOOKUP:
+                return graphLookupSupported ? getEmployeeReportingStructureGraphLookup(id)
+                        : getEmployeeReportingStructureBatched(id);
+            case CACHED:
+                return orgGraphCacheService.getReportingStructure(id);
+            case FORK_JOIN:
+                return getEmployeeReportingStructureForkJoin(id);
+            case SEQUENTIAL:
+            default:
+                return getEmployeeReportingStructureSequential(id);
+        }
+    }
+
+    @Override
+    public ReportingStructure getEmployeeReportingStructure(String id, int depth, int limit) {
+        LOG.debug("Getting reporting structure for employee with id [{}] up to depth [{}] and limit [{}]", id, depth,
+                limit);
+
+        if (depth < 0 || limit < 0) {
+            throw new RuntimeException("Invalid reporting structure depth or limit");
+        }
+
+        return reportingStructureCache.get(id, "depth=" + depth + ",limit=" + limit,
+                () -> computeEmployeeReportingStructure(id, depth, limit));
+    }
+
+    @Override
+    public ReportingStructure getEmployeeReportCount(String id) {
+        LOG.debug("Getting number of reports for employee with id [{}]", id);
+
+        return reportingStructureCache.get(id, "count", () -> computeEmployeeReportCount(id));
+    }
+
+    private ReportingStructure computeEmployeeReportingStructure(String id, int depth, int limit) {
+        ReportingStructure reportingStructure = buildReportingStructure(read(id), this::readAllStubs, depth, limit);
+        if (!reportingStructure.isTruncated()) {
+            return reportingStructure;
+        }
+
+        // the traversal stopped early, so the number of reports is only exact if it can be counted cheaply
+        EmployeeHierarchy hierarchy = employeeHierarchyService.read(id);
+        if (hierarchy != null) {
+            reportingStructure.setNumberOfReports(hierarchy.getDescendantCount());
+        } else if (traversalMode == TraversalMode.CACHED) {
+            reportingStructure.setNumberOfReports(orgGraphCacheService.getNumberOfReports(id));
+        } else {
+            reportingStructure.setNumberOfReportsApproximate(true);
+        }
+
+        return reportingStructure;
+    }
+
+    private ReportingStructure computeEmployeeReportCount(String id) {
+        Employee employee = read(id);
+        EmployeeHierarchy hierarchy = employeeHierarchyService.read(id);
+
+        // employees outside of the materialized hierarchy (e.g. part of a cycle) are counted by walking the hierarchy
+        ReportingStructure reportCount = new ReportingStructure(employee);
+        if (hierarchy != null) {
+            reportCount.setNumberOfReports(hierarchy.getDescendantCount());
+        } else if (traversalMode == TraversalMode.CACHED) {
+            reportCount.setNumberOfReports(orgGraphCacheService.getNumberOfReports(id));
+        } else {
+            // not through the result cache, which must not be called again while it computes this count
+            reportCount.setNumberOfReports(getEmployeeReportingStructure(id, traversalMode).getNumberOfReports());
+        }
+
+        return reportCount;
+    }
+
+    /**
+     * @return version of the employee hierarchy, which changes whenever any employee is written
+     */
+    @Override
+    public long getHierarchyVersion() {
+        return reportingStructureCache.getVersion();
+    }
+
+    /**
+     * method to retrieve every direct and indirect report of an employee as a flat list. Indexed employees are read
+     * with a query on the materialized hierarchy followed by batched reads by employeeId; the others by walking the
+     * reporting structure.
+     * @param id : employeeId of the employee whose reports are required
+     * @return complete Employee objects of the reports, in no particular order
+     */
+    @Override
+    public List<Employee> getReports(String id) {
+        LOG.debug("Getting reports of employee with id [{}]", id);
+
+        Employee employee = read(id);
+        if (employeeHierarchyService.read(id) != null) {
+            List<EmployeeHierarchy> descendants = employeeHierarchyService.readDescendants(id);
+
+            List<Employee> reports = new ArrayList<>(descendants.size());
+            List<String> employeeIds = new ArrayList<>(Math.min(descendants.size(), READ_BATCH_SIZE));
+            for (int i = 0; i < descendants.size(); i++) {
+                employeeIds.add(descendants.get(i).getEmployeeId());
+                if (employeeIds.size() == READ_BATCH_SIZE || i == descendants.size() - 1) {
+                    reports.addAll(employeeRepository.findByEmployeeIdIn(employeeIds));
+                    employeeIds.clear();
+                }
+            }
+
+            return reports;
+        }
+
+        List<Employee> reports = new ArrayList<>();
+        Deque<Employee> employeeStack = new ArrayDeque<>();
+        employeeStack.push(getEmployeeReportingStructure(employee.getEmployeeId()).getEmployee());
+        while (!employeeStack.isEmpty()) {
+            Employee currentEmployee = employeeStack.pop();
+            if (currentEmployee.getDirectReports() != null) {
+                for (Employee directReport : currentEmployee.getDirectReports()) {
+                    reports.add(directReport);
+                    employeeStack.push(directReport);
+                }
+            }
+        }
+
+        return reports;
+    }
+
+    /**
+     * Depth First traversal which hands every employee to the visitor as soon as its level of siblings is retrieved,
+     * so that only the direct reports along the current path are held instead of the whole employee tree. Employees
+     * reached twice are reported as a cycle, like in the Breadth First traversals, but possibly after part of the
+     * reporting structure was visited.
+     * @param id : employeeId of the employee whose reporting structure is required
+     * @param visitor : receives every employee of the reporting structure
+     * @return the number of reports
+     */
+    @Override
+    public int visitEmployeeReportingStructure(String id, ReportingStructureVisitor visitor) {
+        LOG.debug("Visiting reporting structure for employee with id [{}]", id);
+
+        Employee rootEmployee = read(id);
+        int employeeCount = 0;
+
+        // visited employee set to detect cycles in the employee hierarchy tree
+        Set<String> visitedEmployees = new HashSet<>();
+        visitedEmployees.add(rootEmployee.getEmployeeId());
+
+        Deque<Employee> path = new ArrayDeque<>();
+        Deque<Iterator<Employee>> directReportIterators = new ArrayDeque<>();
+
+        visitor.enter(rootEmployee, 0);
+        path.push(rootEmployee);
+        directReportIterators.push(readDirectReports(rootEmployee, visitedEmployees).iterator());
+
+        while (!directReportIterators.isEmpty()) {
+            Iterator<Employee> directReportIterator = directReportIterators.peek();
+
+            if (!directReportIterator.hasNext()) {
+                directReportIterators.pop();
+                Employee employee = path.pop();
+                visitor.leave(employee, path.size());
+                continue;
+            }
+
+            Employee directReport = directReportIterator.next();
+            employeeCount++;
+            visitor.enter(directReport, path.size());
+            path.push(directReport);
+            directReportIterators.push(readDirectReports(directReport, visitedEmployees).iterator());
+        }
+
+        return employeeCount;
+    }
+
+    /**
+     * Follows the managerId pointers from the employee up to the top of the hierarchy, with one lookup by employeeId
+     * per level
+     * @param id : employeeId of the employee whose managers are required
+     * @return the managers of the employee, starting with the direct manager
+     */
+    @Override
+    public List<Employee> getManagementChain(String id) {
+        LOG.debug("Getting management chain for employee with id [{}]", id);
+
+        Employee employee = read(id);
+        List<Employee> managementChain = new ArrayList<>();
+
+        // visited employee set to detect cycles in the employee hierarchy tree
+        Set<String> visitedEmployees = new HashSet<>();
+        visitedEmployees.add(id);
+
+        Employee manager = readManager(employee, visitedEmployees);
+        while (manager != null) {
+            managementChain.add(manager);
+            manager = readManager(manager, visitedEmployees);
+        }
+
+        return managementChain;
+    }
+
+    /**
+     * method to find the lowest employee which both employees report to, directly or indirectly. The management chain
+     * of the first employee is retrieved completely, the one of the second employee only up to the common manager.
+     * @param id : employeeId of the first employee
+     * @param otherId : employeeId of the second employee
+     * @return the lowest common manager
+     */
+    @Override
+    public Employee getCommonManager(String id, String otherId) {
+        LOG.debug("Getting common manager for employees with ids [{}] and [{}]", id, otherId);
+
+        Set<String> managerIds = new HashSet<>();
+        for (Employee manager : getManagementChain(id)) {
+            managerIds.add(manager.getEmployeeId());
+        }
+
+        Employee otherEmployee = read(otherId);
+        Set<String> visitedEmployees = new HashSet<>();
+        visitedEmployees.add(otherId);
+
+        Employee manager = readManager(otherEmployee, visitedEmployees);
+        while (manager != null) {
+            if (managerIds.contains(manager.getEmployeeId())) {
+                return manager;
+            }
+            manager = readManager(manager, visitedEmployees);
+        }
+
+        throw new RuntimeException("Employees " + id + " and " + otherId + " have no common manager");
+    }
+
+    private ReportingStructure getEmployeeReportingStructureSequential(String id) {
 
         // employee whose reporting structure is required
         Employee rootEmployee = read(id);
@@ -98,4 +535,443 @@ public class EmployeeServiceImpl implements EmployeeService {
 
         return reportingStructure;
     }
+
+    /**
+     * Breadth First traversal which retrieves a whole level of the hierarchy with a single repository call, instead of
+     * one call per employee. Produces the same ReportingStructure and detects cycles the same way as the sequential
+     * traversal.
+     * @param id : employeeId of the employee whose reporting structure is required
+     * @return the fully filled out ReportingStructure
+     */
+    private ReportingStructure getEmployeeReportingStructureBatched(String id) {
+        // employee whose reporting structure is required; it is already complete, so it is not fetched again
+        return buildReportingStructure(read(id), this::readAllStubs, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Depth First fork/join traversal: the direct reports of a manager are retrieved with a single repository call,
+     * then the subtrees below them are expanded concurrently on a pool of at most
+     * employee.reporting-structure.fork-join-parallelism threads. Every subtree fills in the Employee objects of the
+     * directReports list it was given, so the tree keeps the order of the directReports lists whatever the order in
+     * which the subtrees complete. An employee reached twice is reported as a cycle, like in the sequential traversal.
+     * @param id : employeeId of the employee whose reporting structure is required
+     * @return the fully filled out ReportingStructure
+     */
+    private ReportingStructure getEmployeeReportingStructureForkJoin(String id) {
+        Employee rootEmployee = read(id);
+        ReportingStructure reportingStructure = new ReportingStructure(rootEmployee);
+
+        // visited employee set shared by all subtrees to detect cycles in the employee hierarchy tree
+        Set<String> visitedEmployees = ConcurrentHashMap.newKeySet();
+        visitedEmployees.add(rootEmployee.getEmployeeId());
+
+        // the first failure is rethrown as is, instead of the copy ForkJoinTask creates for other threads
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        forkJoinPool.invoke(new SubtreeTask(rootEmployee, visitedEmployees, failure));
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        reportingStructure.setNumberOfReports(visitedEmployees.size() - 1);
+
+        return reportingStructure;
+    }
+
+    /**
+     * Fills out the direct reports of a manager, then forks one task per direct report which has reports of its own
+     */
+    private class SubtreeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Employee manager;
+        private final Set<String> visitedEmployees;
+        private final AtomicReference<RuntimeException> failure;
+
+        // round trips are counted towards the traversal whichever worker runs the task
+        private final AtomicInteger roundTrips = TraversalMetrics.current();
+
+        SubtreeTask(Employee manager, Set<String> visitedEmployees, AtomicReference<RuntimeException> failure) {
+            this.manager = manager;
+            this.visitedEmployees = visitedEmployees;
+            this.failure = failure;
+        }
+
+        @Override
+        protected void compute() {
+            AtomicInteger previousRoundTrips = TraversalMetrics.attach(roundTrips);
+            try {
+                expand();
+            } finally {
+                TraversalMetrics.attach(previousRoundTrips);
+            }
+        }
+
+        private void expand() {
+            Employee currentManager = manager;
+
+            // a chain of single subtrees is walked in a loop, so deep hierarchies do not grow the stack
+            while (currentManager != null && failure.get() == null) {
+                List<Employee> directReports = currentManager.getDirectReports();
+                if (directReports == null || directReports.isEmpty()) {
+                    return;
+                }
+
+                List<SubtreeTask> subtasks = new ArrayList<>();
+                try {
+                    for (Employee directReport : directReports) {
+                        if (!visitedEmployees.add(directReport.getEmployeeId())) {
+                            LOG.error("Employee reporting structure contains a cycle");
+                            throw new RuntimeException("Employee reporting structure contains a cycle");
+                        }
+                    }
+
+                    Map<String, Employee> completeEmployees = readAllStubs(directReports);
+                    for (Employee directReport : directReports) {
+                        Employee directReportComplete = completeEmployees.get(directReport.getEmployeeId());
+                        directReport.copyEmployeeMetadata(directReportComplete);
+
+                        if (directReportComplete.getDirectReports() != null) {
+                            directReport.setDirectReports(directReportComplete.getDirectReports());
+                            subtasks.add(new SubtreeTask(directReport, visitedEmployees, failure));
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    return;
+                }
+
+                if (subtasks.size() == 1) {
+                    currentManager = subtasks.get(0).manager;
+                } else {
+                    invokeAll(subtasks);
+                    currentManager = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands the whole subtree walk to the database as a single $graphLookup aggregation over the directReports
+     * references; the flat result is then stitched back into the nested Employee tree in memory. Databases without
+     * $graphLookup, like the embedded MongoServer, are answered by the BATCHED traversal instead.
+     * @param id : employeeId of the employee whose reporting structure is required
+     * @return the fully filled out ReportingStructure
+     */
+    private ReportingStructure getEmployeeReportingStructureGraphLookup(String id) {
+        String collectionName = mongoTemplate.getCollectionName(Employee.class);
+
+        // directReports are embedded Employee objects, so their employeeId is mapped to _id
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("_id").is(id)),
+                Aggregation.graphLookup(collectionName)
+                        .startWith("directReports._id")
+                        .connectFrom("directReports._id")
+                        .connectTo("_id")
+                        .as(GRAPH_LOOKUP_REPORTS_FIELD));
+
+        Document result;
+        try {
+            result = mongoTemplate.aggregate(aggregation, collectionName, Document.class).getUniqueMappedResult();
+        } catch (UncategorizedMongoDbException e) {
+            if (!(e.getCause() instanceof MongoCommandException)
+                    || ((MongoCommandException) e.getCause()).getErrorCode() != UNRECOGNIZED_PIPELINE_STAGE) {
+                throw e;
+            }
+
+            LOG.warn("The database does not support $graphLookup, falling back to the BATCHED traversal");
+            graphLookupSupported = false;
+            return getEmployeeReportingStructureBatched(id);
+        }
+
+        return stitchGraphLookupResult(id, result);
+    }
+
+    /**
+     * method to stitch the flat result of the $graphLookup aggregation back into the nested Employee tree
+     * @param id : employeeId of the employee whose reporting structure is required
+     * @param result : document of the employee with every employee reachable from it in the reports field, or null
+     * @return the fully filled out ReportingStructure
+     */
+    ReportingStructure stitchGraphLookupResult(String id, Document result) {
+        if (result == null) {
+            throw new RuntimeException("Invalid employeeId: " + id);
+        }
+
+        MongoConverter converter = mongoTemplate.getConverter();
+        Employee rootEmployee = converter.read(Employee.class, result);
+
+        // $graphLookup returns every reachable employee exactly once, even when the hierarchy contains a cycle
+        Map<String, Employee> subtree = new HashMap<>();
+        List<?> reports = result.get(GRAPH_LOOKUP_REPORTS_FIELD, List.class);
+        if (reports != null) {
+            for (Object report : reports) {
+                Employee employee = converter.read(Employee.class, (Document) report);
+                subtree.put(employee.getEmployeeId(), employee);
+            }
+        }
+
+        return buildReportingStructure(rootEmployee, employees -> selectAll(subtree, employees), Integer.MAX_VALUE,
+                Integer.MAX_VALUE);
+    }
+
+    /**
+     * Level by level Breadth First traversal shared by the traversals which can resolve a whole level at once. The
+     * cycle check is the same as the one of the sequential traversal, applied in queue order to the whole level
+     * before it is resolved.
+     * @param rootEmployee : complete Employee object whose reporting structure is required
+     * @param employeeLoader : resolves a level of Employee objects containing only the employee ID into complete
+     *                       Employee objects keyed by employeeId
+     * @param maxDepth : number of levels below the root to expand
+     * @param limit : maximum number of reports to expand
+     * @return the filled out ReportingStructure; employees past maxDepth or limit only contain the employee ID
+     */
+    private ReportingStructure buildReportingStructure(Employee rootEmployee,
+                                                       Function<List<Employee>, Map<String, Employee>> employeeLoader,
+                                                       int maxDepth, int limit) {
+        ReportingStructure reportingStructure = new ReportingStructure(rootEmployee);
+        int employeeCount = 1;
+        int expandedCount = 0;
+        int depth = 0;
+
+        // visited employee set to detect cycles in the employee hierarchy tree
+        Set<String> visitedEmployees = new HashSet<>();
+        visitedEmployees.add(rootEmployee.getEmployeeId());
+
+        // employees of the current BFS level, which only contain the employee ID
+        List<Employee> frontier = rootEmployee.getDirectReports() != null
+                ? rootEmployee.getDirectReports() : Collections.<Employee>emptyList();
+
+        while (!frontier.isEmpty()) {
+            for (Employee currentEmployee : frontier) {
+                if (!visitedEmployees.add(currentEmployee.getEmployeeId())) {
+                    LOG.error("Employee reporting structure contains a cycle");
+                    throw new RuntimeException("Employee reporting structure contains a cycle");
+                }
+            }
+            employeeCount += frontier.size();
+
+            if (++depth > maxDepth || expandedCount == limit) {
+                reportingStructure.setTruncated(true);
+                break;
+            }
+
+            List<Employee> expandedEmployees = frontier;
+            if (frontier.size() > limit - expandedCount) {
+                expandedEmployees = frontier.subList(0, limit - expandedCount);
+                reportingStructure.setTruncated(true);
+            }
+            expandedCount += expandedEmployees.size();
+
+            Map<String, Employee> completeEmployees = employeeLoader.apply(expandedEmployees);
+
+            List<Employee> nextFrontier = new ArrayList<>();
+            for (Employee currentEmployee : expandedEmployees) {
+                Employee currentEmployeeComplete = completeEmployees.get(currentEmployee.getEmployeeId());
+                currentEmployee.copyEmployeeMetadata(currentEmployeeComplete);
+
+                List<Employee> directReports = currentEmployeeComplete.getDirectReports();
+                if (directReports != null) {
+                    currentEmployee.setDirectReports(directReports);
+                    nextFrontier.addAll(directReports);
+                }
+            }
+            frontier = nextFrontier;
+
+            if (reportingStructure.isTruncated()) {
+                employeeCount += frontier.size();
+                break;
+            }
+        }
+
+        reportingStructure.setNumberOfReports(employeeCount - 1);
+
+        return reportingStructure;
+    }
+
+    /**
+     * method to point the managerId of added direct reports to their new manager, and to clear it on removed ones
+     * which have not been taken over by another manager in the meantime. The version is left alone: managerId is not
+     * part of what clients write, so a client holding the previous version does not conflict with this change.
+     * @param employeeId : employeeId of the manager
+     * @param previousDirectReports : direct reports before the write
+     * @param directReports : direct reports after the write
+     */
+    private void updateManagerIds(String employeeId, List<Employee> previousDirectReports,
+                                  List<Employee> directReports) {
+        Set<String> previousDirectReportIds = new HashSet<>(employeeIds(previousDirectReports));
+        Set<String> directReportIds = new HashSet<>(employeeIds(directReports));
+
+        // written to the collection rather than the entity, which would also increment the version of the reports
+        String collectionName = mongoTemplate.getCollectionName(Employee.class);
+
+        Set<String> removedEmployeeIds = new HashSet<>(previousDirectReportIds);
+        removedEmployeeIds.removeAll(directReportIds);
+        if (!removedEmployeeIds.isEmpty()) {
+            mongoTemplate.updateMulti(query(where("_id").in(removedEmployeeIds).and("managerId").is(employeeId)),
+                    new Update().unset("managerId"), collectionName);
+            entityCaches.employees().invalidateAll(removedEmployeeIds);
+        }
+
+        directReportIds.removeAll(previousDirectReportIds);
+        if (!directReportIds.isEmpty()) {
+            mongoTemplate.updateMulti(query(where("_id").in(directReportIds)),
+                    new Update().set("managerId", employeeId), collectionName);
+            entityCaches.employees().invalidateAll(directReportIds);
+        }
+    }
+
+    /**
+     * method to give a version to an employee stored before versioning was introduced
+     * @param employeeId : employeeId of the employee
+     * @return the version of the employee, 0 unless a concurrent write initialized it first
+     */
+    private long initializeVersion(String employeeId) {
+        mongoTemplate.updateFirst(query(where("_id").is(employeeId).and("version").exists(false)),
+                new Update().set("version", 0L), Employee.class);
+
+        Employee employee = employeeRepository.findByEmployeeId(employeeId);
+        return employee != null && employee.getVersion() != null ? employee.getVersion() : 0L;
+    }
+
+    /**
+     * method to retrieve the manager of an employee through its managerId
+     * @param employee : complete Employee object
+     * @param visitedEmployees : employees already reached, to detect cycles in the employee hierarchy tree
+     * @return the complete manager, or null for an employee at the top of the hierarchy
+     */
+    private Employee readManager(Employee employee, Set<String> visitedEmployees) {
+        String managerId = employee.getManagerId();
+        if (managerId == null) {
+            return null;
+        }
+
+        if (!visitedEmployees.add(managerId)) {
+            LOG.error("Employee management chain contains a cycle");
+            throw new RuntimeException("Employee reporting structure contains a cycle");
+        }
+
+        return read(managerId);
+    }
+
+    /**
+     * method to retrieve the complete direct reports of an employee, in order, with a single repository call
+     * @param employee : complete Employee object
+     * @param visitedEmployees : employees already reached, to detect cycles in the employee hierarchy tree
+     * @return complete Employee objects of the direct reports
+     */
+    private List<Employee> readDirectReports(Employee employee, Set<String> visitedEmployees) {
+        List<Employee> directReports = employee.getDirectReports();
+        if (directReports == null || directReports.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        for (Employee directReport : directReports) {
+            if (!visitedEmployees.add(directReport.getEmployeeId())) {
+                LOG.error("Employee reporting structure contains a cycle");
+                throw new RuntimeException("Employee reporting structure contains a cycle");
+            }
+        }
+
+        Map<String, Employee> completeEmployees = readAllStubs(directReports);
+        List<Employee> completeDirectReports = new ArrayList<>(directReports.size());
+        for (Employee directReport : directReports) {
+            completeDirectReports.add(completeEmployees.get(directReport.getEmployeeId()));
+        }
+
+        return completeDirectReports;
+    }
+
+    /**
+     * method to retrieve the complete Employee objects for a list of employees, with a single repository call for the
+     * ones which are not cached
+     * @param employees : Employee objects which only need to contain the employee ID
+     * @return complete Employee objects keyed by employeeId
+     */
+    private Map<String, Employee> readAllStubs(List<Employee> employees) {
+        Map<String, Employee> completeEmployees = entityCaches.employees().getAll(employeeIds(employees),
+                this::loadAll);
+
+        return selectAll(completeEmployees, employees);
+    }
+
+    /**
+     * method to load employees from the repository. With virtual threads enabled, large sets of employees are split
+     * into batches which are fetched concurrently, one virtual thread per batch.
+     * @param employeeIds : employeeIds of the employees to load
+     * @return the stored employees keyed by employeeId
+     */
+    private Map<String, Employee> loadAll(List<String> employeeIds) {
+        Map<String, Employee> loadedEmployees = new HashMap<>();
+
+        if (virtualThreadExecutor == null || employeeIds.size() <= parallelFetchSize) {
+            for (Employee employee : employeeRepository.findByEmployeeIdIn(employeeIds)) {
+                loadedEmployees.put(employee.getEmployeeId(), employee);
+            }
+            return loadedEmployees;
+        }
+
+        AtomicInteger roundTrips = TraversalMetrics.current();
+        List<Future<List<Employee>>> batches = new ArrayList<>();
+        for (int i = 0; i < employeeIds.size(); i += parallelFetchSize) {
+            List<String> batch = employeeIds.subList(i, Math.min(i + parallelFetchSize, employeeIds.size()));
+            batches.add(virtualThreadExecutor.submit(() -> {
+                AtomicInteger previousRoundTrips = TraversalMetrics.attach(roundTrips);
+                try {
+                    return employeeRepository.findByEmployeeIdIn(batch);
+                } finally {
+                    TraversalMetrics.attach(previousRoundTrips);
+                }
+            }));
+        }
+
+        try {
+            for (Future<List<Employee>> batch : batches) {
+                for (Employee employee : batch.get()) {
+                    loadedEmployees.put(employee.getEmployeeId(), employee);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading employees", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Loading employees failed", e.getCause());
+        } finally {
+            for (Future<List<Employee>> batch : batches) {
+                batch.cancel(true);
+            }
+        }
+
+        return loadedEmployees;
+    }
+
+    private static List<String> employeeIds(List<Employee> employees) {
+        List<String> employeeIds = new ArrayList<>();
+        if (employees != null) {
+            for (Employee employee : employees) {
+                employeeIds.add(employee.getEmployeeId());
+            }
+        }
+
+        return employeeIds;
+    }
+
+    /**
+     * method to pick the complete Employee objects for a list of employees out of already retrieved ones
+     * @param completeEmployees : complete Employee objects keyed by employeeId
+     * @param employees : Employee objects which only need to contain the employee ID
+     * @return complete Employee objects keyed by employeeId
+     */
+    private static Map<String, Employee> selectAll(Map<String, Employee> completeEmployees, List<Employee> employees) {
+        Map<String, Employee> selectedEmployees = new HashMap<>();
+        for (Employee employee : employees) {
+            Employee completeEmployee = completeEmployees.get(employee.getEmployeeId());
+            if (completeEmployee == null) {
+                throw new RuntimeException("Invalid employeeId: " + employee.getEmployeeId());
+            }
+            selectedEmployees.put(employee.getEmployeeId(), completeEmployee);
+        }
+
+        return selectedEmployees;
+    }
 }
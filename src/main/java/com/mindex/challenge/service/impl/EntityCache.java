@@ -0,0 +1,122 @@
+package com.mindex.challenge.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mindex.challenge.data.CacheStatistics;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded read-through cache of documents keyed by id, evicting by size (W-TinyLFU) and by age. Callers modify the
+ * objects they read (e.g. while building a reporting structure), so every value is copied on the way in and out.
+ */
+class EntityCache<V> {
+
+    private final Cache<String, V> cache;
+    private final UnaryOperator<V> copier;
+
+    // incremented on every invalidation, so that values loaded concurrently with a change are not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    EntityCache(long maximumSize, long expireAfterWriteSeconds, UnaryOperator<V> copier) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        this.copier = copier;
+    }
+
+    Cache<String, V> getNativeCache() {
+        return cache;
+    }
+
+    /**
+     * @return a copy of the cached value, loaded first if absent; null values are not cached
+     */
+    V get(String key, Function<String, V> loader) {
+        V value = cache.get(key, loader);
+        return value != null ? copier.apply(value) : null;
+    }
+
+    /**
+     * @return copies of the cached values for the given keys, keys which are not cached are absent
+     */
+    Map<String, V> getAllPresent(Collection<String> keys) {
+        Map<String, V> values = new HashMap<>();
+        for (Map.Entry<String, V> entry : cache.getAllPresent(keys).entrySet()) {
+            values.put(entry.getKey(), copier.apply(entry.getValue()));
+        }
+
+        return values;
+    }
+
+    /**
+     * @return values for the given keys, the ones which are not cached are retrieved with a single call to the loader;
+     * keys for which the loader returns no value are absent
+     */
+    Map<String, V> getAll(Collection<String> keys, Function<List<String>, Map<String, V>> loader) {
+        Map<String, V> values = getAllPresent(keys);
+        if (values.size() == keys.size()) {
+            return values;
+        }
+
+        List<String> missingKeys = new ArrayList<>(keys.size() - values.size());
+        for (String key : keys) {
+            if (!values.containsKey(key)) {
+                missingKeys.add(key);
+            }
+        }
+
+        long loadGeneration = generation.get();
+        Map<String, V> loadedValues = loader.apply(missingKeys);
+        for (Map.Entry<String, V> entry : loadedValues.entrySet()) {
+            cache.put(entry.getKey(), copier.apply(entry.getValue()));
+        }
+        if (generation.get() != loadGeneration) {
+            // an invalidation raced with the load, the loaded values may already be stale
+            cache.invalidateAll(loadedValues.keySet());
+        }
+        values.putAll(loadedValues);
+
+        return values;
+    }
+
+    void invalidate(String key) {
+        generation.incrementAndGet();
+        cache.invalidate(key);
+    }
+
+    void invalidateAll(Collection<String> keys) {
+        generation.incrementAndGet();
+        cache.invalidateAll(keys);
+    }
+
+    void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    CacheStatistics getStatistics() {
+        return getStatistics(cache);
+    }
+
+    static CacheStatistics getStatistics(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+
+        CacheStatistics statistics = new CacheStatistics();
+        statistics.setSize(cache.estimatedSize());
+        statistics.setHitCount(stats.hitCount());
+        statistics.setMissCount(stats.missCount());
+        statistics.setHitRate(stats.hitRate());
+        statistics.setEvictionCount(stats.evictionCount());
+        statistics.setAverageLoadPenaltyNanos(stats.averageLoadPenalty());
+
+        return statistics;
+    }
+}
@@ -0,0 +1,94 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.CacheStatistics;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Read-through caches in front of the employee and compensation repositories, sized and aged per entity type through
+ * cache.{employee,compensation}.maximum-size and cache.{employee,compensation}.expire-after-write-seconds
+ */
+@Component
+public class EntityCaches {
+
+    @Value("${cache.employee.maximum-size:10000}")
+    private long employeeMaximumSize;
+
+    @Value("${cache.employee.expire-after-write-seconds:600}")
+    private long employeeExpireAfterWriteSeconds;
+
+    @Value("${cache.compensation.maximum-size:10000}")
+    private long compensationMaximumSize;
+
+    @Value("${cache.compensation.expire-after-write-seconds:600}")
+    private long compensationExpireAfterWriteSeconds;
+
+    // employees by employeeId
+    private EntityCache<Employee> employees;
+
+    // compensation histories, oldest entry first, by employeeId
+    private EntityCache<List<Compensation>> compensationHistories;
+
+    @PostConstruct
+    public void init() {
+        employees = new EntityCache<>(employeeMaximumSize, employeeExpireAfterWriteSeconds, EntityCaches::copyEmployee);
+        compensationHistories = new EntityCache<>(compensationMaximumSize, compensationExpireAfterWriteSeconds,
+                EntityCaches::copyCompensationHistory);
+    }
+
+    EntityCache<Employee> employees() {
+        return employees;
+    }
+
+    EntityCache<List<Compensation>> compensationHistories() {
+        return compensationHistories;
+    }
+
+    Map<String, CacheStatistics> getStatistics() {
+        Map<String, CacheStatistics> statistics = new TreeMap<>();
+        statistics.put("employee", employees.getStatistics());
+        statistics.put("compensation", compensationHistories.getStatistics());
+
+        return statistics;
+    }
+
+    private static Employee copyEmployee(Employee employee) {
+        Employee copy = new Employee();
+        copy.setEmployeeId(employee.getEmployeeId());
+        copy.copyEmployeeMetadata(employee);
+        copy.setVersion(employee.getVersion());
+
+        // directReports are stored embedded, usually as stubs holding the employeeId only
+        if (employee.getDirectReports() != null) {
+            List<Employee> directReports = new ArrayList<>(employee.getDirectReports().size());
+            for (Employee directReport : employee.getDirectReports()) {
+                directReports.add(copyEmployee(directReport));
+            }
+            copy.setDirectReports(directReports);
+        }
+
+        return copy;
+    }
+
+    private static List<Compensation> copyCompensationHistory(List<Compensation> compensations) {
+        List<Compensation> copies = new ArrayList<>(compensations.size());
+        for (Compensation compensation : compensations) {
+            Compensation copy = new Compensation();
+            copy.setCompensationId(compensation.getCompensationId());
+            copy.setEmployeeId(compensation.getEmployeeId());
+            copy.setSalary(compensation.getSalary());
+            copy.setEffectiveDate(compensation.getEffectiveDate());
+            copies.add(copy);
+        }
+
+        return copies;
+    }
+}
@@ -0,0 +1,95 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.config.TraceFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every EmployeeService / CompensationService method and every repository call, tagged with the service or
+ * repository, the method and the outcome, and counts the failures per exception type. With tracing.enabled every timed
+ * call is additionally logged as a span of the trace of its request.
+ */
+@Aspect
+@Component
+public class MetricsAspect {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsAspect.class);
+    private static final String REPOSITORY_PACKAGE = "com.mindex.challenge.dao.";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tracing.enabled:false}")
+    private boolean tracingEnabled;
+
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Around("execution(* com.mindex.challenge.service.EmployeeService.*(..))"
+            + " || execution(* com.mindex.challenge.service.CompensationService.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("challenge.service", "service", joinPoint.getSignature().getDeclaringType().getSimpleName(),
+                joinPoint);
+    }
+
+    // the reactive repositories are left out, their calls return before the database is involved
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))"
+            + " && !execution(* org.springframework.data.repository.reactive.ReactiveCrudRepository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (joinPoint.getSignature().getDeclaringType() == Object.class) {
+            return joinPoint.proceed();
+        }
+
+        return time("challenge.repository", "repository", repositoryName(joinPoint.getThis()), joinPoint);
+    }
+
+    private Object time(String name, String typeTag, String type, ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        String outcome = "success";
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            meterRegistry.counter(name + ".errors", typeTag, type, "method", method, "exception",
+                    e.getClass().getSimpleName()).increment();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Timer.builder(name).tag(typeTag, type).tag("method", method).tag("outcome", outcome)
+                    .publishPercentileHistogram().register(meterRegistry).record(elapsed, TimeUnit.NANOSECONDS);
+
+            if (tracingEnabled) {
+                LOG.debug("Span of trace [{}]: {}.{} took [{}] us with outcome [{}]", MDC.get(TraceFilter.TRACE_ID),
+                        type, method, elapsed / 1000, outcome);
+            }
+        }
+    }
+
+    /**
+     * @return simple name of the repository interface of the application implemented by a repository proxy
+     */
+    private String repositoryName(Object repository) {
+        return repositoryNames.computeIfAbsent(repository.getClass(), repositoryClass -> {
+            for (Class<?> repositoryInterface : AopProxyUtils.proxiedUserInterfaces(repository)) {
+                if (repositoryInterface.getName().startsWith(REPOSITORY_PACKAGE)) {
+                    return repositoryInterface.getSimpleName();
+                }
+            }
+            return repositoryClass.getSimpleName();
+        });
+    }
+}
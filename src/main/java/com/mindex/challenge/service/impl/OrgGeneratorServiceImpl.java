@@ -0,0 +1,298 @@
+package com.mindex.challenge.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.Change;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeImportResult;
+import com.mindex.challenge.data.OrgGeneratorSettings;
+import com.mindex.challenge.service.ChangeLogService;
+import com.mindex.challenge.service.EmployeeImportService;
+import com.mindex.challenge.service.OrgGeneratorService;
+import com.mongodb.BulkWriteError;
+import com.mongodb.MongoBulkWriteException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+public class OrgGeneratorServiceImpl implements OrgGeneratorService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrgGeneratorServiceImpl.class);
+    private static final int COMPENSATION_BATCH_SIZE = 1000;
+    private static final int MAX_COMPENSATIONS_PER_EMPLOYEE = 3;
+    private static final LocalDate LATEST_EFFECTIVE_DATE = LocalDate.of(2020, 1, 1);
+
+    private static final String[] FIRST_NAMES = {"John", "Paul", "Ringo", "George", "Pete", "Grace", "Ada", "Alan",
+            "Barbara", "Edsger", "Frances", "Ken", "Linus", "Margaret", "Niklaus", "Radia"};
+    private static final String[] LAST_NAMES = {"Lennon", "McCartney", "Starr", "Harrison", "Best", "Hopper",
+            "Lovelace", "Turing", "Liskov", "Dijkstra", "Allen", "Thompson", "Torvalds", "Hamilton", "Wirth",
+            "Perlman"};
+    private static final String[] DEPARTMENTS = {"Engineering", "Sales", "Marketing", "Finance", "Operations",
+            "Legal", "Support", "Research"};
+
+    @Autowired
+    private EmployeeImportService employeeImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    /**
+     * method to generate an organisation and load it through the bulk import. Employees are numbered in Breadth First
+     * order, so that the direct reports of every employee are a contiguous range of later employees and each
+     * employee can be written as soon as its number of direct reports is drawn; the employees are streamed to a
+     * temporary gzip compressed NDJSON file instead of being held in memory.
+     * @param settings : size, fan-out, depth, cycles and seed of the organisation
+     * @return the result of the bulk import of the generated employees
+     */
+    @Override
+    public EmployeeImportResult generate(OrgGeneratorSettings settings) {
+        LOG.debug("Generating [{}] employees with [{}] fan-out [{}], max depth [{}] and [{}] cycles from seed [{}]",
+                settings.getSize(), settings.getFanOutDistribution(), settings.getFanOut(), settings.getMaxDepth(),
+                settings.getCycles(), settings.getSeed());
+
+        if (settings.getSize() < 1 || settings.getFanOut() < 1 || settings.getMaxDepth() < 0
+                || settings.getCycles() < 0 || settings.getCycles() >= settings.getSize()) {
+            throw new RuntimeException("Invalid org generator settings");
+        }
+
+        File employeeFile = null;
+        try {
+            employeeFile = File.createTempFile("generated-employees-", ".ndjson.gz");
+            int[] depths = writeEmployees(settings, employeeFile);
+
+            EmployeeImportResult result;
+            try (InputStream inputStream = new FileInputStream(employeeFile)) {
+                result = employeeImportService.importEmployees(inputStream, false);
+            }
+
+            if (settings.isCompensations()) {
+                insertCompensations(settings, depths);
+            }
+
+            return result;
+        } catch (IOException e) {
+            throw new RuntimeException("Org generation failed", e);
+        } finally {
+            if (employeeFile != null && !employeeFile.delete()) {
+                employeeFile.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * @return the depth of every generated employee; its length is the number of generated employees
+     */
+    private int[] writeEmployees(OrgGeneratorSettings settings, File employeeFile) throws IOException {
+        int size = settings.getSize();
+        int maxDepth = settings.getMaxDepth() > 0 ? settings.getMaxDepth() : Integer.MAX_VALUE;
+        Random random = new Random(settings.getSeed());
+
+        // employees which also list one of their managers as a direct report
+        Set<Integer> cycleEmployees = new HashSet<>();
+        while (cycleEmployees.size() < settings.getCycles()) {
+            cycleEmployees.add(1 + random.nextInt(size - 1));
+        }
+
+        int[] parents = new int[size];
+        int[] depths = new int[size];
+        byte[] departments = new byte[size];
+        int nextEmployee = 1;
+        int employee = 0;
+
+        try (OutputStream outputStream = new GZIPOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(employeeFile.toPath())));
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setRootValueSeparator(null);
+
+            for (; employee < nextEmployee; employee++) {
+                int fanOut = 0;
+                if (depths[employee] < maxDepth - 1) {
+                    fanOut = drawFanOut(settings, random);
+
+                    // the organisation only stops growing once it has reached its size
+                    if (fanOut == 0 && nextEmployee == employee + 1) {
+                        fanOut = 1;
+                    }
+                }
+                fanOut = Math.min(fanOut, size - nextEmployee);
+
+                List<Employee> directReports = null;
+                if (fanOut > 0) {
+                    directReports = new ArrayList<>(fanOut + 1);
+                    for (int i = nextEmployee; i < nextEmployee + fanOut; i++) {
+                        parents[i] = employee;
+                        depths[i] = depths[employee] + 1;
+                        departments[i] = depths[employee] == 0 ? (byte) (i % DEPARTMENTS.length)
+                                : departments[employee];
+                        directReports.add(stub(settings.employeeId(i)));
+                    }
+                    nextEmployee += fanOut;
+                }
+
+                if (cycleEmployees.contains(employee) && depths[employee] > 0) {
+                    int manager = employee;
+                    for (int steps = 1 + random.nextInt(depths[employee]); steps > 0; steps--) {
+                        manager = parents[manager];
+                    }
+                    if (directReports == null) {
+                        directReports = new ArrayList<>(1);
+                    }
+                    directReports.add(stub(settings.employeeId(manager)));
+                }
+
+                objectMapper.writeValue(generator, toEmployee(settings, employee, depths[employee],
+                        departments[employee], fanOut, directReports));
+                generator.writeRaw('\n');
+            }
+        }
+
+        LOG.debug("Generated [{}] employees in [{}] levels", employee, depths[employee - 1] + 1);
+
+        return Arrays.copyOf(depths, employee);
+    }
+
+    private static int drawFanOut(OrgGeneratorSettings settings, Random random) {
+        int fanOut = settings.getFanOut();
+        switch (settings.getFanOutDistribution()) {
+            case OrgGeneratorSettings.CONSTANT_DISTRIBUTION:
+                return fanOut;
+            case OrgGeneratorSettings.UNIFORM_DISTRIBUTION:
+                return random.nextInt(2 * fanOut + 1);
+            case OrgGeneratorSettings.POWER_LAW_DISTRIBUTION:
+                // Pareto distribution with shape 2 and mean fanOut: most managers have about half the mean, a few
+                // have many times the mean
+                double scale = fanOut / 2.0;
+                return (int) Math.min(scale / Math.sqrt(1.0 - random.nextDouble()), Integer.MAX_VALUE);
+            default:
+                throw new RuntimeException("Invalid fan-out distribution: " + settings.getFanOutDistribution());
+        }
+    }
+
+    private static Employee toEmployee(OrgGeneratorSettings settings, int index, int depth, int department,
+                                       int fanOut, List<Employee> directReports) {
+        Employee employee = new Employee();
+        employee.setEmployeeId(settings.employeeId(index));
+        employee.setFirstName(FIRST_NAMES[index % FIRST_NAMES.length]);
+        employee.setLastName(LAST_NAMES[(index / FIRST_NAMES.length) % LAST_NAMES.length]);
+        employee.setDepartment(DEPARTMENTS[department]);
+        employee.setDirectReports(directReports);
+
+        if (depth == 0) {
+            employee.setPosition("Chief Executive Officer");
+        } else if (depth == 1) {
+            employee.setPosition("Vice President");
+        } else {
+            employee.setPosition(fanOut > 0 ? "Manager" : "Developer");
+        }
+
+        return employee;
+    }
+
+    /**
+     * method to give every generated employee a compensation history of up to MAX_COMPENSATIONS_PER_EMPLOYEE yearly
+     * raises, with salaries decreasing with the depth in the organisation
+     * @param depths : depth of every generated employee
+     */
+    private void insertCompensations(OrgGeneratorSettings settings, int[] depths) {
+        // independent of the employee generation, so that the organisation does not change with this option
+        Random random = new Random(~settings.getSeed());
+        List<Compensation> batch = new ArrayList<>(COMPENSATION_BATCH_SIZE);
+        long inserted = 0;
+
+        for (int employee = 0; employee < depths.length; employee++) {
+            int salary = 250000 / (depths[employee] + 1) + random.nextInt(20000);
+            int compensations = 1 + random.nextInt(MAX_COMPENSATIONS_PER_EMPLOYEE);
+            for (int i = compensations - 1; i >= 0; i--) {
+                Compensation compensation = new Compensation();
+                compensation.setEmployeeId(settings.employeeId(employee));
+                compensation.setSalary(salary);
+                compensation.setEffectiveDate(LATEST_EFFECTIVE_DATE.minusYears(i));
+                batch.add(compensation);
+                salary += salary * 3 / 100;
+            }
+
+            if (batch.size() >= COMPENSATION_BATCH_SIZE || employee == depths.length - 1) {
+                inserted += insertCompensationBatch(batch);
+                batch.clear();
+            }
+        }
+
+        // bulk inserts bypass the caches
+        entityCaches.compensationHistories().invalidateAll();
+
+        LOG.debug("Generated [{}] compensations", inserted);
+    }
+
+    /**
+     * method to insert a batch of compensations, logged as one bulk-create change of the inserted ones
+     * @param batch : compensations to insert
+     * @return the number of inserted compensations
+     */
+    private int insertCompensationBatch(List<Compensation> batch) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Compensation.class);
+        bulkOperations.insert(batch);
+
+        // compensations generated before from the same seed are kept
+        int insertedCount;
+        Set<Integer> failedIndexes = new HashSet<>();
+        try {
+            insertedCount = bulkOperations.execute().getInsertedCount();
+        } catch (BulkOperationException e) {
+            insertedCount = e.getResult().getInsertedCount();
+            for (BulkWriteError error : e.getErrors()) {
+                failedIndexes.add(error.getIndex());
+            }
+        } catch (DataIntegrityViolationException e) {
+            // MongoTemplate translates the MongoBulkWriteException of duplicate keys
+            if (!(e.getCause() instanceof MongoBulkWriteException)) {
+                throw e;
+            }
+            MongoBulkWriteException bulkWriteException = (MongoBulkWriteException) e.getCause();
+            insertedCount = bulkWriteException.getWriteResult().getInsertedCount();
+            for (com.mongodb.bulk.BulkWriteError error : bulkWriteException.getWriteErrors()) {
+                failedIndexes.add(error.getIndex());
+            }
+        }
+
+        // a server which stops at the first error has only inserted the compensations before it
+        List<Compensation> insertedCompensations = new ArrayList<>(insertedCount);
+        for (int i = 0; i < batch.size() && insertedCompensations.size() < insertedCount; i++) {
+            if (!failedIndexes.contains(i)) {
+                insertedCompensations.add(batch.get(i));
+            }
+        }
+        if (!insertedCompensations.isEmpty()) {
+            changeLogService.append(Change.COMPENSATION, Change.BULK_CREATE, null, insertedCompensations);
+        }
+
+        return insertedCount;
+    }
+
+    private static Employee stub(String employeeId) {
+        Employee employee = new Employee();
+        employee.setEmployeeId(employeeId);
+        return employee;
+    }
+}
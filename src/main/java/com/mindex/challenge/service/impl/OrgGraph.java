@@ -0,0 +1,354 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportingStructure;
+
+import java.util.*;
+
+/**
+ * Immutable snapshot of the employee hierarchy held as int-indexed arrays: an employeeId to index dictionary, the
+ * children of every employee in CSR layout (children of employee i are children[childOffsets[i]] up to
+ * children[childOffsets[i + 1]]), a parent array and precomputed subtree sizes. Employees referenced as a direct
+ * report without a document of their own are kept in the dictionary so that traversals fail the same way as the
+ * repository backed ones.
+ */
+class OrgGraph {
+
+    private static final int NO_PARENT = -1;
+    private static final int UNKNOWN_SIZE = -1;
+
+    private final Map<String, Integer> indexes;
+    private final String[] employeeIds;
+    private final String[] firstNames;
+    private final String[] lastNames;
+    private final String[] positions;
+    private final String[] departments;
+
+    // employees which have a document, and employees whose directReports list is not null
+    private final BitSet storedEmployees;
+    private final BitSet employeesWithDirectReports;
+
+    private final int[] childOffsets;
+    private final int[] children;
+    private final int[] parents;
+    private final int[] subtreeSizes;
+
+    private OrgGraph(Builder builder) {
+        int employeeCount = builder.employeeIds.size();
+
+        this.indexes = builder.indexes;
+        this.employeeIds = builder.employeeIds.toArray(new String[employeeCount]);
+        this.firstNames = Arrays.copyOf(builder.firstNames, employeeCount);
+        this.lastNames = Arrays.copyOf(builder.lastNames, employeeCount);
+        this.positions = Arrays.copyOf(builder.positions, employeeCount);
+        this.departments = Arrays.copyOf(builder.departments, employeeCount);
+        this.storedEmployees = builder.storedEmployees;
+        this.employeesWithDirectReports = builder.employeesWithDirectReports;
+
+        // counting sort of the (manager, direct report) edges, which keeps the order of every directReports list
+        this.childOffsets = new int[employeeCount + 1];
+        for (int i = 0; i < builder.edgeCount; i++) {
+            childOffsets[builder.edgeParents[i] + 1]++;
+        }
+        for (int i = 0; i < employeeCount; i++) {
+            childOffsets[i + 1] += childOffsets[i];
+        }
+
+        this.children = new int[builder.edgeCount];
+        this.parents = new int[employeeCount];
+        Arrays.fill(parents, NO_PARENT);
+        int[] nextChild = Arrays.copyOf(childOffsets, employeeCount);
+        for (int i = 0; i < builder.edgeCount; i++) {
+            int parent = builder.edgeParents[i];
+            int child = builder.edgeChildren[i];
+            children[nextChild[parent]++] = child;
+            if (parents[child] == NO_PARENT) {
+                parents[child] = parent;
+            }
+        }
+
+        this.subtreeSizes = computeSubtreeSizes();
+    }
+
+    int size() {
+        return employeeIds.length;
+    }
+
+    Employee getEmployee(String employeeId) {
+        return toEmployee(indexOf(employeeId));
+    }
+
+    String getManagerId(String employeeId) {
+        int parent = parents[indexOf(employeeId)];
+        return parent == NO_PARENT ? null : employeeIds[parent];
+    }
+
+    int getNumberOfReports(String employeeId) {
+        int index = indexOf(employeeId);
+        if (subtreeSizes[index] != UNKNOWN_SIZE) {
+            return subtreeSizes[index] - 1;
+        }
+
+        // not a proper tree below this employee: the traversal reports why
+        return getReportingStructure(employeeId).getNumberOfReports();
+    }
+
+    /**
+     * Same Breadth First traversal as the sequential, repository backed one, so that the resulting ReportingStructure
+     * and the detected errors are identical
+     * @param employeeId : employeeId of the employee whose reporting structure is required
+     * @return the fully filled out ReportingStructure
+     */
+    ReportingStructure getReportingStructure(String employeeId) {
+        int rootIndex = indexOf(employeeId);
+        Employee rootEmployee = toEmployee(rootIndex);
+        ReportingStructure reportingStructure = new ReportingStructure(rootEmployee);
+        int employeeCount = 0;
+
+        BitSet visitedEmployees = new BitSet(employeeIds.length);
+
+        Deque<Employee> employeeQueue = new ArrayDeque<>();
+        IntQueue indexQueue = new IntQueue();
+        employeeQueue.add(rootEmployee);
+        indexQueue.add(rootIndex);
+
+        while (!employeeQueue.isEmpty()) {
+            Employee currentEmployee = employeeQueue.remove();
+            int currentIndex = indexQueue.remove();
+
+            if (visitedEmployees.get(currentIndex)) {
+                throw new RuntimeException("Employee reporting structure contains a cycle");
+            }
+            employeeCount++;
+            visitedEmployees.set(currentIndex);
+
+            checkStored(currentIndex);
+            copyMetadata(currentIndex, currentEmployee);
+
+            if (employeesWithDirectReports.get(currentIndex)) {
+                List<Employee> directReports = new ArrayList<>(childOffsets[currentIndex + 1] - childOffsets[currentIndex]);
+                for (int i = childOffsets[currentIndex]; i < childOffsets[currentIndex + 1]; i++) {
+                    Employee directReport = new Employee();
+                    directReport.setEmployeeId(employeeIds[children[i]]);
+                    directReports.add(directReport);
+                    employeeQueue.add(directReport);
+                    indexQueue.add(children[i]);
+                }
+                currentEmployee.setDirectReports(directReports);
+            }
+        }
+
+        reportingStructure.setNumberOfReports(employeeCount - 1);
+
+        return reportingStructure;
+    }
+
+    /**
+     * @return number of employees in the subtree of every employee, including itself, or UNKNOWN_SIZE for employees
+     * whose subtree contains a cycle, a missing employee or an employee reachable through more than one manager
+     */
+    private int[] computeSubtreeSizes() {
+        int[] sizes = new int[employeeIds.length];
+        Arrays.fill(sizes, UNKNOWN_SIZE);
+
+        BitSet reached = new BitSet(employeeIds.length);
+        BitSet inconsistent = new BitSet(employeeIds.length);
+
+        // iterative post-order Depth First traversal from every employee without a manager
+        int[] path = new int[16];
+        int[] nextChild = new int[16];
+        for (int root = 0; root < employeeIds.length; root++) {
+            if (parents[root] != NO_PARENT || !storedEmployees.get(root)) {
+                continue;
+            }
+
+            int depth = 0;
+            path[0] = root;
+            nextChild[0] = childOffsets[root];
+            reached.set(root);
+
+            while (depth >= 0) {
+                int current = path[depth];
+                if (nextChild[depth] == childOffsets[current + 1]) {
+                    int size = 1;
+                    for (int i = childOffsets[current]; i < childOffsets[current + 1]; i++) {
+                        size += Math.max(sizes[children[i]], 0);
+                    }
+                    if (!inconsistent.get(current)) {
+                        sizes[current] = size;
+                    }
+                    depth--;
+                    continue;
+                }
+
+                int child = children[nextChild[depth]++];
+                if (!storedEmployees.get(child) || reached.get(child)) {
+                    // every employee on the current path would be counted wrong
+                    for (int i = 0; i <= depth; i++) {
+                        inconsistent.set(path[i]);
+                    }
+                    continue;
+                }
+
+                reached.set(child);
+                depth++;
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, path.length * 2);
+                    nextChild = Arrays.copyOf(nextChild, nextChild.length * 2);
+                }
+                path[depth] = child;
+                nextChild[depth] = childOffsets[child];
+            }
+        }
+
+        return sizes;
+    }
+
+    private int indexOf(String employeeId) {
+        Integer index = indexes.get(employeeId);
+        if (index == null) {
+            throw new RuntimeException("Invalid employeeId: " + employeeId);
+        }
+        checkStored(index);
+
+        return index;
+    }
+
+    private void checkStored(int index) {
+        if (!storedEmployees.get(index)) {
+            throw new RuntimeException("Invalid employeeId: " + employeeIds[index]);
+        }
+    }
+
+    private Employee toEmployee(int index) {
+        Employee employee = new Employee();
+        employee.setEmployeeId(employeeIds[index]);
+        copyMetadata(index, employee);
+
+        if (employeesWithDirectReports.get(index)) {
+            List<Employee> directReports = new ArrayList<>(childOffsets[index + 1] - childOffsets[index]);
+            for (int i = childOffsets[index]; i < childOffsets[index + 1]; i++) {
+                Employee directReport = new Employee();
+                directReport.setEmployeeId(employeeIds[children[i]]);
+                directReports.add(directReport);
+            }
+            employee.setDirectReports(directReports);
+        }
+
+        return employee;
+    }
+
+    private void copyMetadata(int index, Employee employee) {
+        employee.setFirstName(firstNames[index]);
+        employee.setLastName(lastNames[index]);
+        employee.setPosition(positions[index]);
+        employee.setDepartment(departments[index]);
+        employee.setManagerId(parents[index] == NO_PARENT ? null : employeeIds[parents[index]]);
+    }
+
+    /**
+     * Collects Employee documents one at a time, so that the snapshot can be built from a stream without holding the
+     * Employee objects
+     */
+    static class Builder {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> employeeIds = new ArrayList<>();
+
+        // position and department values repeat across the organisation, so only one copy of each is kept
+        private final Map<String, String> sharedValues = new HashMap<>();
+
+        private String[] firstNames = new String[16];
+        private String[] lastNames = new String[16];
+        private String[] positions = new String[16];
+        private String[] departments = new String[16];
+        private final BitSet storedEmployees = new BitSet();
+        private final BitSet employeesWithDirectReports = new BitSet();
+
+        private int[] edgeParents = new int[16];
+        private int[] edgeChildren = new int[16];
+        private int edgeCount;
+
+        Builder add(Employee employee) {
+            int index = indexOf(employee.getEmployeeId());
+            storedEmployees.set(index);
+            firstNames[index] = employee.getFirstName();
+            lastNames[index] = employee.getLastName();
+            positions[index] = share(employee.getPosition());
+            departments[index] = share(employee.getDepartment());
+
+            if (employee.getDirectReports() != null) {
+                employeesWithDirectReports.set(index);
+                for (Employee directReport : employee.getDirectReports()) {
+                    if (edgeCount == edgeParents.length) {
+                        edgeParents = Arrays.copyOf(edgeParents, edgeCount * 2);
+                        edgeChildren = Arrays.copyOf(edgeChildren, edgeCount * 2);
+                    }
+                    edgeParents[edgeCount] = index;
+                    edgeChildren[edgeCount] = indexOf(directReport.getEmployeeId());
+                    edgeCount++;
+                }
+            }
+
+            return this;
+        }
+
+        OrgGraph build() {
+            return new OrgGraph(this);
+        }
+
+        private int indexOf(String employeeId) {
+            Integer index = indexes.get(employeeId);
+            if (index != null) {
+                return index;
+            }
+
+            index = employeeIds.size();
+            indexes.put(employeeId, index);
+            employeeIds.add(employeeId);
+            if (index == firstNames.length) {
+                firstNames = Arrays.copyOf(firstNames, index * 2);
+                lastNames = Arrays.copyOf(lastNames, index * 2);
+                positions = Arrays.copyOf(positions, index * 2);
+                departments = Arrays.copyOf(departments, index * 2);
+            }
+
+            return index;
+        }
+
+        private String share(String value) {
+            if (value == null) {
+                return null;
+            }
+
+            String sharedValue = sharedValues.putIfAbsent(value, value);
+            return sharedValue != null ? sharedValue : value;
+        }
+    }
+
+    /**
+     * Growable FIFO queue of primitive ints
+     */
+    private static class IntQueue {
+        private int[] elements = new int[16];
+        private int head;
+        private int tail;
+
+        void add(int element) {
+            if (tail == elements.length) {
+                if (head > elements.length / 2) {
+                    System.arraycopy(elements, head, elements, 0, tail - head);
+                } else {
+                    elements = Arrays.copyOf(elements, elements.length * 2);
+                    System.arraycopy(elements, head, elements, 0, tail - head);
+                }
+                tail -= head;
+                head = 0;
+            }
+            elements[tail++] = element;
+        }
+
+        int remove() {
+            return elements[head++];
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.OrgGraphCacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers reporting structure queries from an in-memory OrgGraph snapshot, which is loaded lazily from the employee
+ * collection and dropped whenever an employee changes
+ */
+@Service
+public class OrgGraphCacheServiceImpl implements OrgGraphCacheService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrgGraphCacheServiceImpl.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private volatile OrgGraph orgGraph;
+
+    // incremented on every invalidation, so that a snapshot loaded concurrently with a change is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    @Override
+    public ReportingStructure getReportingStructure(String id) {
+        LOG.debug("Getting cached reporting structure for employee with id [{}]", id);
+
+        return getOrgGraph().getReportingStructure(id);
+    }
+
+    @Override
+    public int getNumberOfReports(String id) {
+        LOG.debug("Getting cached number of reports for employee with id [{}]", id);
+
+        return getOrgGraph().getNumberOfReports(id);
+    }
+
+    @Override
+    public void invalidate() {
+        generation.incrementAndGet();
+        orgGraph = null;
+    }
+
+    private OrgGraph getOrgGraph() {
+        OrgGraph currentOrgGraph = orgGraph;
+        if (currentOrgGraph != null) {
+            return currentOrgGraph;
+        }
+
+        synchronized (this) {
+            currentOrgGraph = orgGraph;
+            if (currentOrgGraph == null) {
+                long loadedGeneration = generation.get();
+                currentOrgGraph = load();
+                if (generation.get() == loadedGeneration) {
+                    orgGraph = currentOrgGraph;
+                }
+            }
+
+            return currentOrgGraph;
+        }
+    }
+
+    private OrgGraph load() {
+        long start = System.currentTimeMillis();
+
+        // streamed, so that the Employee objects do not have to be held while the snapshot is built
+        OrgGraph.Builder builder = new OrgGraph.Builder();
+        try (CloseableIterator<Employee> employees = mongoTemplate.stream(new Query(), Employee.class)) {
+            while (employees.hasNext()) {
+                builder.add(employees.next());
+            }
+        }
+        OrgGraph loadedOrgGraph = builder.build();
+
+        LOG.debug("Loaded org graph of [{}] employees in [{}] ms", loadedOrgGraph.size(),
+                System.currentTimeMillis() - start);
+
+        return loadedOrgGraph;
+    }
+}
@@ -0,0 +1,85 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.dao.ReactiveCompensationRepository;
+import com.mindex.challenge.data.BatchReadResult;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.service.CompensationService;
+import com.mindex.challenge.service.ReactiveCompensationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Reads are answered by the reactive repository; creation is delegated to the blocking CompensationService, which
+ * validates the employee and invalidates the cached compensation history.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveCompensationServiceImpl implements ReactiveCompensationService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveCompensationServiceImpl.class);
+
+    @Autowired
+    private ReactiveCompensationRepository compensationRepository;
+
+    @Autowired
+    private CompensationService compensationService;
+
+    @Override
+    public Mono<Compensation> create(Compensation compensation) {
+        LOG.debug("Creating compensation [{}]", compensation);
+
+        return Mono.fromCallable(() -> compensationService.create(compensation))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Compensation> read(String id) {
+        LOG.debug("Reading current compensation for employee with id [{}]", id);
+
+        return compensationRepository
+                .findFirstByEmployeeIdAndEffectiveDateLessThanEqualOrderByEffectiveDateDesc(id, LocalDate.now())
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new RuntimeException("Invalid employeeId: " + id))));
+    }
+
+    @Override
+    public Mono<Compensation> read(String id, LocalDate asOf) {
+        LOG.debug("Reading compensation for employee with id [{}] as of [{}]", id, asOf);
+
+        return compensationRepository
+                .findFirstByEmployeeIdAndEffectiveDateLessThanEqualOrderByEffectiveDateDesc(id, asOf)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new RuntimeException(
+                        "No compensation in effect on " + asOf + " for employeeId: " + id))));
+    }
+
+    @Override
+    public Mono<BatchReadResult<Compensation>> readAll(List<String> ids) {
+        return Mono.defer(() -> {
+            List<String> employeeIds = BatchReads.distinctIds(ids);
+            LOG.debug("Reading current compensation for [{}] employees", employeeIds.size());
+
+            // oldest entry first, so that the entry in effect today is the last one kept per employee
+            return compensationRepository
+                    .findByEmployeeIdInAndEffectiveDateLessThanEqualOrderByEffectiveDateAsc(employeeIds,
+                            LocalDate.now())
+                    .collectMap(Compensation::getEmployeeId)
+                    .map(compensations -> BatchReads.toResult(employeeIds, compensations));
+        });
+    }
+
+    @Override
+    public Flux<Compensation> readHistory(String id) {
+        LOG.debug("Reading compensation history for employee with id [{}]", id);
+
+        return compensationRepository.findByEmployeeIdOrderByEffectiveDateAsc(id)
+                .switchIfEmpty(Flux.defer(() -> Flux.error(new RuntimeException("Invalid employeeId: " + id))));
+    }
+}
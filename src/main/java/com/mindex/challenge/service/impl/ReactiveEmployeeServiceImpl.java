@@ -0,0 +1,171 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.dao.ReactiveEmployeeRepository;
+import com.mindex.challenge.data.BatchReadResult;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.EmployeeService;
+import com.mindex.challenge.service.ReactiveEmployeeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.*;
+
+/**
+ * Reads are answered by the reactive repository without holding a thread while the database works. Writes are
+ * delegated to the blocking EmployeeService on the bounded elastic scheduler: they maintain the hierarchy collection,
+ * the managerId of the direct reports and the caches, which the blocking service already keeps consistent.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveEmployeeServiceImpl implements ReactiveEmployeeService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveEmployeeServiceImpl.class);
+
+    @Autowired
+    private ReactiveEmployeeRepository employeeRepository;
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Value("${employee.reporting-structure.reactive-concurrency:4}")
+    private int concurrency;
+
+    @Value("${employee.reporting-structure.reactive-batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public Mono<Employee> create(Employee employee) {
+        LOG.debug("Creating employee [{}]", employee);
+
+        return Mono.fromCallable(() -> employeeService.create(employee)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Employee> read(String id) {
+        LOG.debug("Getting employee with id [{}]", id);
+
+        return employeeRepository.findByEmployeeId(id)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new RuntimeException("Invalid employeeId: " + id))));
+    }
+
+    @Override
+    public Mono<BatchReadResult<Employee>> readAll(List<String> ids) {
+        return Mono.defer(() -> {
+            List<String> employeeIds = BatchReads.distinctIds(ids);
+            LOG.debug("Getting [{}] employees", employeeIds.size());
+
+            return employeeRepository.findByEmployeeIdIn(employeeIds).collectMap(Employee::getEmployeeId)
+                    .map(employees -> BatchReads.toResult(employeeIds, employees));
+        });
+    }
+
+    @Override
+    public Flux<Employee> search(String department, String lastName, String firstName) {
+        LOG.debug("Searching employees with department [{}], lastName [{}] and firstName [{}]", department, lastName,
+                firstName);
+
+        return Flux.defer(() -> reactiveMongoTemplate.find(EmployeeSearches.query(department, lastName, firstName),
+                Employee.class));
+    }
+
+    @Override
+    public Mono<Employee> update(Employee employee) {
+        LOG.debug("Updating employee [{}]", employee);
+
+        return Mono.fromCallable(() -> employeeService.update(employee)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Level by level Breadth First traversal, like the BATCHED traversal of the blocking service. Every level is
+     * split into batches which are fetched concurrently, at most concurrency of them at a time, and the next level is
+     * only requested once the whole current level has arrived. No thread is held while a level is being fetched.
+     * @param id : employeeId of the employee whose reporting structure is required
+     * @return the fully filled out ReportingStructure
+     */
+    @Override
+    public Mono<ReportingStructure> getEmployeeReportingStructure(String id) {
+        LOG.debug("Getting reporting structure for employee with id [{}]", id);
+
+        return read(id).flatMap(rootEmployee -> {
+            ReportingStructure reportingStructure = new ReportingStructure(rootEmployee);
+
+            // visited employee set to detect cycles in the employee hierarchy tree
+            Set<String> visitedEmployees = new HashSet<>();
+            visitedEmployees.add(rootEmployee.getEmployeeId());
+
+            List<Employee> frontier = rootEmployee.getDirectReports() != null
+                    ? rootEmployee.getDirectReports() : Collections.<Employee>emptyList();
+
+            return expandLevel(frontier, visitedEmployees).then(Mono.fromCallable(() -> {
+                reportingStructure.setNumberOfReports(visitedEmployees.size() - 1);
+                return reportingStructure;
+            }));
+        });
+    }
+
+    /**
+     * method to fill out one level of the reporting structure and then, recursively, the levels below it. The levels
+     * are expanded one after the other, so visitedEmployees is never accessed concurrently.
+     * @param frontier : employees of the level, which only contain the employee ID
+     * @param visitedEmployees : employeeIds of the employees reached so far
+     * @return completes once every level below the frontier has been filled out
+     */
+    private Mono<Void> expandLevel(List<Employee> frontier, Set<String> visitedEmployees) {
+        if (frontier.isEmpty()) {
+            return Mono.empty();
+        }
+
+        for (Employee currentEmployee : frontier) {
+            if (!visitedEmployees.add(currentEmployee.getEmployeeId())) {
+                LOG.error("Employee reporting structure contains a cycle");
+                return Mono.error(new RuntimeException("Employee reporting structure contains a cycle"));
+            }
+        }
+
+        List<String> employeeIds = new ArrayList<>(frontier.size());
+        for (Employee currentEmployee : frontier) {
+            employeeIds.add(currentEmployee.getEmployeeId());
+        }
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < employeeIds.size(); i += batchSize) {
+            batches.add(employeeIds.subList(i, Math.min(i + batchSize, employeeIds.size())));
+        }
+
+        return Flux.fromIterable(batches)
+                .flatMap(employeeRepository::findByEmployeeIdIn, concurrency)
+                .collectMap(Employee::getEmployeeId)
+                .flatMap(completeEmployees -> {
+                    List<Employee> nextFrontier = new ArrayList<>();
+                    for (Employee currentEmployee : frontier) {
+                        Employee currentEmployeeComplete = completeEmployees.get(currentEmployee.getEmployeeId());
+                        if (currentEmployeeComplete == null) {
+                            LOG.error("Invalid employeeId in reporting structure: [{}]",
+                                    currentEmployee.getEmployeeId());
+                            return Mono.error(new RuntimeException("Invalid employeeId: "
+                                    + currentEmployee.getEmployeeId()));
+                        }
+                        currentEmployee.copyEmployeeMetadata(currentEmployeeComplete);
+
+                        List<Employee> directReports = currentEmployeeComplete.getDirectReports();
+                        if (directReports != null) {
+                            currentEmployee.setDirectReports(directReports);
+                            nextFrontier.addAll(directReports);
+                        }
+                    }
+
+                    return expandLevel(nextFrontier, visitedEmployees);
+                });
+    }
+}
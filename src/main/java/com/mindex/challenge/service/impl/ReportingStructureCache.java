@@ -0,0 +1,127 @@
+package com.mindex.challenge.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mindex.challenge.data.CacheStatistics;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportingStructure;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Computed ReportingStructure results, keyed by root employeeId, request variant and the version of the hierarchy they
+ * were computed from. Every change to an employee bumps the version, so that entries computed before the change are
+ * never looked up again, even the ones still being computed while the cache is cleared. Entries are weighted by their
+ * number of employees, bounded by cache.reporting-structure.maximum-employees.
+ */
+@Component
+public class ReportingStructureCache {
+
+    @Value("${cache.reporting-structure.maximum-employees:1000000}")
+    private long maximumEmployees;
+
+    private Cache<String, ReportingStructure> cache;
+
+    private final AtomicLong version = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maximumEmployees)
+                .weigher((String key, ReportingStructure reportingStructure) ->
+                        reportingStructure.getNumberOfReports() + 1)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * method to retrieve a reporting structure computed from the current hierarchy, computing it if necessary. The
+     * traversal runs outside of the cache, so that a slow computation does not block other keys; concurrent misses for
+     * the same key may compute it more than once. Callers modify the trees they receive, so every result is a copy.
+     * @param id : employeeId of the employee whose reporting structure is required
+     * @param variant : identifies the kind of result (e.g. depth and limit) for the same employee
+     * @param loader : computes the result; failures are not cached
+     * @return a copy of the cached or computed result
+     */
+    ReportingStructure get(String id, String variant, Supplier<ReportingStructure> loader) {
+        // the version is read before computing, so a result racing with a change is stored under the old version
+        String key = version.get() + "/" + variant + "/" + id;
+        ReportingStructure reportingStructure = cache.getIfPresent(key);
+        if (reportingStructure == null) {
+            reportingStructure = loader.get();
+            cache.put(key, reportingStructure);
+        }
+
+        return copy(reportingStructure);
+    }
+
+    long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * method to make every cached result unreachable; called after the change is written, so that no result computed
+     * after the call can miss it
+     */
+    void invalidate() {
+        version.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    Cache<String, ReportingStructure> getNativeCache() {
+        return cache;
+    }
+
+    CacheStatistics getStatistics() {
+        return EntityCache.getStatistics(cache);
+    }
+
+    /**
+     * method to copy a reporting structure together with its employee tree; iterative, since the tree can be deeper
+     * than the stack
+     * @param reportingStructure : reporting structure to copy
+     * @return the copy
+     */
+    private static ReportingStructure copy(ReportingStructure reportingStructure) {
+        Employee employee = reportingStructure.getEmployee();
+        Employee employeeCopy = employee != null ? new Employee() : null;
+
+        Deque<Employee[]> stack = new ArrayDeque<>();
+        if (employee != null) {
+            stack.push(new Employee[]{employee, employeeCopy});
+        }
+        while (!stack.isEmpty()) {
+            Employee[] pair = stack.pop();
+            Employee original = pair[0];
+            Employee copy = pair[1];
+            copy.setEmployeeId(original.getEmployeeId());
+            copy.copyEmployeeMetadata(original);
+            copy.setVersion(original.getVersion());
+
+            if (original.getDirectReports() != null) {
+                List<Employee> directReports = new ArrayList<>(original.getDirectReports().size());
+                for (Employee directReport : original.getDirectReports()) {
+                    Employee directReportCopy = new Employee();
+                    directReports.add(directReportCopy);
+                    stack.push(new Employee[]{directReport, directReportCopy});
+                }
+                copy.setDirectReports(directReports);
+            }
+        }
+
+        ReportingStructure copy = new ReportingStructure(employeeCopy);
+        copy.setNumberOfReports(reportingStructure.getNumberOfReports());
+        copy.setTruncated(reportingStructure.isTruncated());
+        copy.setNumberOfReportsApproximate(reportingStructure.isNumberOfReportsApproximate());
+
+        return copy;
+    }
+}
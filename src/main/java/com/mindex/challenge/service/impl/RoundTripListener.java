@@ -0,0 +1,29 @@
+package com.mindex.challenge.service.impl;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts every command sent by the Mongo driver, including the getMore of a cursor, as a round trip of the reporting
+ * structure traversal running on the thread. The synchronous driver notifies on the thread issuing the command, so
+ * repository calls and MongoTemplate queries and aggregations are counted alike.
+ */
+@Component
+class RoundTripListener implements CommandListener {
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        TraversalMetrics.recordRoundTrip();
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+    }
+}
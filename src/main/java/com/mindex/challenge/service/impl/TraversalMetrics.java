@@ -0,0 +1,121 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.TraversalMode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Per request statistics of the reporting structure traversals: employees visited, depth and widest level of the
+ * resulting tree, and the Mongo round trips the traversal issued. Round trips are the driver commands counted by
+ * RoundTripListener on the thread running the traversal, and on the threads the traversal hands work to once they
+ * attach its counter.
+ */
+@Component
+class TraversalMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TraversalMetrics.class);
+
+    private static final ThreadLocal<AtomicInteger> ROUND_TRIPS = new ThreadLocal<>();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * @return the round trip counter of the traversal running on the current thread, or null
+     */
+    static AtomicInteger current() {
+        return ROUND_TRIPS.get();
+    }
+
+    /**
+     * method to count the round trips of the current thread towards a traversal
+     * @param roundTrips : counter of the traversal, or null to stop counting
+     * @return the counter previously attached, to be restored once the work for the traversal is done
+     */
+    static AtomicInteger attach(AtomicInteger roundTrips) {
+        AtomicInteger previous = ROUND_TRIPS.get();
+        if (roundTrips != null) {
+            ROUND_TRIPS.set(roundTrips);
+        } else {
+            ROUND_TRIPS.remove();
+        }
+        return previous;
+    }
+
+    static void recordRoundTrip() {
+        AtomicInteger roundTrips = ROUND_TRIPS.get();
+        if (roundTrips != null) {
+            roundTrips.incrementAndGet();
+        }
+    }
+
+    /**
+     * method to run a traversal and record its statistics, tagged with the traversal mode
+     * @param id : employeeId of the root of the traversal
+     * @param traversalMode : traversal which computes the reporting structure
+     * @param traversal : computes the reporting structure
+     * @return the reporting structure computed by the traversal
+     */
+    ReportingStructure record(String id, TraversalMode traversalMode, Supplier<ReportingStructure> traversal) {
+        AtomicInteger roundTrips = new AtomicInteger();
+        AtomicInteger previous = attach(roundTrips);
+        long start = System.nanoTime();
+
+        ReportingStructure reportingStructure;
+        try {
+            reportingStructure = traversal.get();
+        } finally {
+            attach(previous);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // depth and widest level are read from the resulting tree, so that they are the same for every traversal
+        int depth = 0;
+        int maximumWidth = 0;
+        List<Employee> level = reportingStructure.getEmployee().getDirectReports();
+        while (level != null && !level.isEmpty()) {
+            depth++;
+            maximumWidth = Math.max(maximumWidth, level.size());
+
+            List<Employee> nextLevel = new ArrayList<>();
+            for (Employee employee : level) {
+                if (employee.getDirectReports() != null) {
+                    nextLevel.addAll(employee.getDirectReports());
+                }
+            }
+            level = nextLevel;
+        }
+
+        String traversalName = traversalMode.name();
+        Timer.builder("reporting.structure.traversal").tag("traversal", traversalName)
+                .publishPercentileHistogram().register(meterRegistry).record(elapsed, TimeUnit.NANOSECONDS);
+        summary("reporting.structure.employees", traversalName).record(reportingStructure.getNumberOfReports() + 1);
+        summary("reporting.structure.depth", traversalName).record(depth);
+        summary("reporting.structure.width", traversalName).record(maximumWidth);
+        summary("reporting.structure.round.trips", traversalName).record(roundTrips.get());
+
+        LOG.debug("Traversed reporting structure of employee [{}] with [{}] traversal in [{}] ms: [{}] employees, "
+                        + "depth [{}], widest level [{}], [{}] round trips", id, traversalName, elapsed / 1000000,
+                reportingStructure.getNumberOfReports() + 1, depth, maximumWidth, roundTrips.get());
+
+        return reportingStructure;
+    }
+
+    private DistributionSummary summary(String name, String traversalName) {
+        return DistributionSummary.builder(name).tag("traversal", traversalName).publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
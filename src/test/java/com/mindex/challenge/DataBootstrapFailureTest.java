@@ -0,0 +1,49 @@
+package com.mindex.challenge;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"bootstrap.async=true", "bootstrap.location=classpath:/static/missing.json"})
+public class DataBootstrapFailureTest {
+
+    @Autowired
+    private DataBootstrap dataBootstrap;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void testFailedAsyncBootstrapIsReported() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (dataBootstrap.getFailure() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertNotNull(dataBootstrap.getFailure());
+        assertFalse(dataBootstrap.isReady());
+
+        ResponseEntity<Map> response = restTemplate.getForEntity("http://localhost:" + port + "/bootstrap", Map.class);
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals(dataBootstrap.getFailure(), response.getBody().get("failure"));
+        assertTrue(dataBootstrap.getFailure().contains("missing.json"));
+    }
+}
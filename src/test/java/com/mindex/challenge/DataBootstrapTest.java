@@ -2,6 +2,8 @@ package com.mindex.challenge;
 
 import com.mindex.challenge.dao.EmployeeRepository;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeImportResult;
+import com.mindex.challenge.service.EmployeeImportService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +12,14 @@ import org.springframework.test.context.junit4.SpringRunner;
 import static org.junit.Assert.assertEquals;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
@@ -18,6 +28,12 @@ public class DataBootstrapTest {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private DataBootstrap dataBootstrap;
+
+    @Autowired
+    private EmployeeImportService employeeImportService;
+
     @Test
     public void test() {
         Employee employee = employeeRepository.findByEmployeeId("16a596ae-edd3-4847-99fe-c4518e82c86f");
@@ -26,5 +42,27 @@ public class DataBootstrapTest {
         assertEquals("Lennon", employee.getLastName());
         assertEquals("Development Manager", employee.getPosition());
         assertEquals("Engineering", employee.getDepartment());
+
+        assertTrue(dataBootstrap.isReady());
+        assertEquals(5, dataBootstrap.getResult().getInserted());
+    }
+
+    @Test
+    public void testGzipNdjsonImport() throws IOException {
+        String firstEmployeeId = UUID.randomUUID().toString();
+        String secondEmployeeId = UUID.randomUUID().toString();
+        String employees = "{\"employeeId\":\"" + firstEmployeeId + "\",\"firstName\":\"Pete\"}\n"
+                + "{\"employeeId\":\"" + secondEmployeeId + "\",\"firstName\":\"George\"}\n";
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(employees.getBytes(StandardCharsets.UTF_8));
+        }
+
+        EmployeeImportResult result = employeeImportService.importEmployees(
+                new ByteArrayInputStream(compressed.toByteArray()), true);
+
+        assertEquals(2, result.getInserted());
+        assertEquals("George", employeeRepository.findByEmployeeId(secondEmployeeId).getFirstName());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.Change;
+import com.mindex.challenge.data.ChangeBatch;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.service.ChangeLogService;
+import com.mindex.challenge.service.CompensationService;
+import com.mindex.challenge.service.EmployeeImportService;
+import com.mindex.challenge.service.EmployeeService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ChangeLogServiceImplTest {
+
+    private String changesUrl;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private CompensationService compensationService;
+
+    @Autowired
+    private EmployeeImportService employeeImportService;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Before
+    public void setup() {
+        changesUrl = "http://localhost:" + port + "/changes?since={since}&wait={wait}";
+    }
+
+    @Test
+    public void testMutationsAreLoggedInOrder() {
+        long since = readToEnd();
+
+        Employee employee = employeeService.create(new Employee());
+        employeeService.patch(employee.getEmployeeId(), Collections.singletonMap("position", "Developer"), null);
+
+        Compensation compensation = new Compensation();
+        compensation.setEmployeeId(employee.getEmployeeId());
+        compensation.setSalary(90000);
+        compensation.setEffectiveDate(LocalDate.of(2019, 1, 1));
+        compensationService.create(compensation);
+
+        ChangeBatch batch = changeLogService.read(since, 100);
+        List<Change> changes = batch.getChanges();
+        assertEquals(3, changes.size());
+        assertFalse(batch.isTruncated());
+
+        assertChange(changes.get(0), since + 1, Change.EMPLOYEE, Change.CREATE, employee.getEmployeeId());
+        assertChange(changes.get(1), since + 2, Change.EMPLOYEE, Change.PATCH, employee.getEmployeeId());
+        assertChange(changes.get(2), since + 3, Change.COMPENSATION, Change.CREATE, employee.getEmployeeId());
+        assertEquals("Developer", ((Employee) changes.get(1).getEntity()).getPosition());
+        assertEquals(since + 3, batch.getLastSequence());
+
+        // a consumer which is up to date gets no change
+        assertTrue(changeLogService.read(batch.getLastSequence(), 100).getChanges().isEmpty());
+    }
+
+    @Test
+    public void testBulkImportIsLoggedAsOneChange() {
+        long since = readToEnd();
+
+        String employees = "{\"firstName\": \"Zoe\"}\n{\"firstName\": \"Wash\"}\n";
+        employeeImportService.importEmployees(new ByteArrayInputStream(employees.getBytes(StandardCharsets.UTF_8)),
+                true);
+
+        List<Change> changes = changeLogService.read(since, 100).getChanges();
+        assertEquals(1, changes.size());
+        assertChange(changes.get(0), since + 1, Change.EMPLOYEE, Change.BULK_CREATE, null);
+        assertEquals(2, ((List<?>) changes.get(0).getEntity()).size());
+    }
+
+    @Test
+    public void testOlderVersionIsSuperseded() {
+        long since = readToEnd();
+
+        // two writes of one employee which reach the change log in the opposite order
+        Employee employee = employeeService.create(new Employee());
+        Employee olderEmployee = new Employee();
+        olderEmployee.setEmployeeId(employee.getEmployeeId());
+        olderEmployee.setVersion(employee.getVersion() + 1);
+        Employee newerEmployee = new Employee();
+        newerEmployee.setEmployeeId(employee.getEmployeeId());
+        newerEmployee.setVersion(employee.getVersion() + 2);
+
+        Change newerChange = changeLogService.append(Change.EMPLOYEE, Change.UPDATE, employee.getEmployeeId(),
+                newerEmployee);
+        Change olderChange = changeLogService.append(Change.EMPLOYEE, Change.UPDATE, employee.getEmployeeId(),
+                olderEmployee);
+        assertEquals(newerChange.getSequence(), olderChange.getSequence());
+
+        List<Change> changes = changeLogService.read(since, 100).getChanges();
+        assertEquals(2, changes.size());
+        assertEquals(Long.valueOf(employee.getVersion() + 2), changes.get(1).getVersion());
+    }
+
+    @Test
+    public void testLongPoll() throws Exception {
+        long since = readToEnd();
+
+        // without a change the poll ends empty once the wait is over
+        ChangeBatch emptyBatch = restTemplate.getForObject(changesUrl, ChangeBatch.class, since, 1);
+        assertNotNull(emptyBatch);
+        assertTrue(emptyBatch.getChanges().isEmpty());
+        assertEquals(since, emptyBatch.getLastSequence());
+
+        CompletableFuture<ChangeBatch> poll = CompletableFuture.supplyAsync(
+                () -> restTemplate.getForObject(changesUrl, ChangeBatch.class, since, 30));
+        Employee employee = employeeService.create(new Employee());
+
+        ChangeBatch batch = poll.get(30, TimeUnit.SECONDS);
+        assertEquals(1, batch.getChanges().size());
+        assertEquals(employee.getEmployeeId(), batch.getChanges().get(0).getEmployeeId());
+        assertEquals(since + 1, batch.getLastSequence());
+    }
+
+    /**
+     * @return the sequence of the last change in the log
+     */
+    private long readToEnd() {
+        long since = 0;
+        ChangeBatch batch;
+        do {
+            batch = changeLogService.read(since, 1000);
+            since = batch.getLastSequence();
+        } while (!batch.getChanges().isEmpty());
+
+        return since;
+    }
+
+    private static void assertChange(Change change, long sequence, String entityType, String operation,
+                                     String employeeId) {
+        assertEquals(sequence, change.getSequence());
+        assertEquals(entityType, change.getEntityType());
+        assertEquals(operation, change.getOperation());
+        assertEquals(employeeId, change.getEmployeeId());
+        assertNotNull(change.getTimestamp());
+    }
+}
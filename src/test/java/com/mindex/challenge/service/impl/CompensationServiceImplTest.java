@@ -1,7 +1,12 @@
 package com.mindex.challenge.service.impl;
 
+import com.mindex.challenge.data.BatchReadRequest;
+import com.mindex.challenge.data.BatchReadResult;
 import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationSummary;
+import com.mindex.challenge.data.Employee;
 import com.mindex.challenge.service.CompensationService;
+import com.mindex.challenge.service.EmployeeService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -12,6 +17,13 @@ import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.http.*;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
@@ -24,6 +36,9 @@ public class CompensationServiceImplTest {
     @Autowired
     private CompensationService compensationService;
 
+    @Autowired
+    private EmployeeService employeeService;
+
     @LocalServerPort
     private int port;
 
@@ -41,7 +56,7 @@ public class CompensationServiceImplTest {
         // create compensation using valid employeeId
         testCompensation.setEmployeeId("16a596ae-edd3-4847-99fe-c4518e82c86f");
         testCompensation.setSalary(80000);
-        testCompensation.setEffectiveDate("08/25/2018");
+        testCompensation.setEffectiveDate(LocalDate.of(2018, 8, 25));
 
         // Create checks
         HttpHeaders headers = new HttpHeaders();
@@ -68,6 +83,127 @@ public class CompensationServiceImplTest {
 
     }
 
+    @Test
+    public void testHistory() {
+        // Paul McCartney
+        String employeeId = "b7839309-3348-463b-a7e3-5de1c168beb3";
+
+        for (LocalDate effectiveDate : new LocalDate[]{LocalDate.of(2020, 1, 1), LocalDate.of(2019, 1, 1),
+                LocalDate.now().plusYears(1)}) {
+            Compensation compensation = new Compensation();
+            compensation.setEmployeeId(employeeId);
+            compensation.setSalary(50000 + effectiveDate.getYear());
+            compensation.setEffectiveDate(effectiveDate);
+            compensationService.create(compensation);
+        }
+
+        Compensation[] history = restTemplate.getForEntity(compensationIdUrl + "/history", Compensation[].class,
+                employeeId).getBody();
+        assertNotNull(history);
+        assertEquals(3, history.length);
+        assertEquals(LocalDate.of(2019, 1, 1), history[0].getEffectiveDate());
+        assertEquals(LocalDate.of(2020, 1, 1), history[1].getEffectiveDate());
+
+        // the raise scheduled for next year is not in effect yet
+        Compensation current = restTemplate.getForEntity(compensationIdUrl, Compensation.class, employeeId).getBody();
+        assertNotNull(current);
+        assertEquals(LocalDate.of(2020, 1, 1), current.getEffectiveDate());
+
+        Compensation asOf = restTemplate.getForEntity(compensationIdUrl + "?asOf=06/30/2019", Compensation.class,
+                employeeId).getBody();
+        assertNotNull(asOf);
+        assertEquals(LocalDate.of(2019, 1, 1), asOf.getEffectiveDate());
+
+        ResponseEntity<Compensation> beforeHistory = restTemplate.getForEntity(compensationIdUrl + "?asOf=12/31/2018",
+                Compensation.class, employeeId);
+        assertEquals(500, beforeHistory.getStatusCodeValue());
+
+        // a second entry for the same effectiveDate is rejected by the unique history index
+        Compensation duplicate = new Compensation();
+        duplicate.setSalary(1);
+        duplicate.setEffectiveDate(LocalDate.of(2019, 1, 1));
+        ResponseEntity<Compensation> duplicateResponse = restTemplate.postForEntity(compensationIdUrl, duplicate,
+                Compensation.class, employeeId);
+        assertEquals(500, duplicateResponse.getStatusCodeValue());
+    }
+
+    @Test
+    public void testBatchRead() {
+        Employee employee = employeeService.create(new Employee());
+        Employee futureEmployee = employeeService.create(new Employee());
+        Employee uncompensatedEmployee = employeeService.create(new Employee());
+
+        createCompensation(employee.getEmployeeId(), 1000, LocalDate.of(2019, 1, 1));
+        createCompensation(employee.getEmployeeId(), 2000, LocalDate.of(2020, 1, 1));
+        createCompensation(futureEmployee.getEmployeeId(), 3000, LocalDate.now().plusYears(1));
+
+        // the current compensation of every employee, employees without one are missing
+        BatchReadResult<Compensation> result = compensationService.readAll(Arrays.asList(
+                uncompensatedEmployee.getEmployeeId(), employee.getEmployeeId(), futureEmployee.getEmployeeId()));
+        assertEquals(1, result.getFound().size());
+        assertEquals(2000, result.getFound().get(0).getSalary());
+        assertEquals(Arrays.asList(uncompensatedEmployee.getEmployeeId(), futureEmployee.getEmployeeId()),
+                result.getMissing());
+
+        BatchReadRequest request = new BatchReadRequest();
+        request.setIds(Collections.singletonList(employee.getEmployeeId()));
+        request.setFields(Collections.singletonList("salary"));
+
+        Map<?, ?> projected = restTemplate.postForObject("http://localhost:" + port + "/compensation/_batch", request,
+                Map.class);
+        assertNotNull(projected);
+
+        Map<?, ?> compensation = (Map<?, ?>) ((List<?>) projected.get("found")).get(0);
+        assertEquals(2, compensation.size());
+        assertEquals(employee.getEmployeeId(), compensation.get("employeeId"));
+        assertEquals(2000, compensation.get("salary"));
+    }
+
+    @Test
+    public void testCompensationSummary() {
+        List<Employee> reports = new ArrayList<>();
+        String[] departments = {"Finance", "Finance", "Legal", "Legal"};
+        int[] salaries = {100, 200, 300, 0};
+        for (int i = 0; i < departments.length; i++) {
+            Employee report = new Employee();
+            report.setDepartment(departments[i]);
+            report = employeeService.create(report);
+            reports.add(report);
+
+            // the last report has no compensation
+            if (salaries[i] > 0) {
+                Compensation compensation = new Compensation();
+                compensation.setEmployeeId(report.getEmployeeId());
+                compensation.setSalary(salaries[i]);
+                compensation.setEffectiveDate(LocalDate.of(2020, 1, 1));
+                compensationService.create(compensation);
+            }
+        }
+
+        Employee manager = new Employee();
+        manager.setDirectReports(reports);
+        manager = employeeService.create(manager);
+
+        CompensationSummary summary = restTemplate.getForEntity(
+                "http://localhost:" + port + "/employee/{id}/reporting-structure/compensation-summary?groupBy=department",
+                CompensationSummary.class, manager.getEmployeeId()).getBody();
+
+        assertNotNull(summary);
+        assertEquals(4, summary.getNumberOfReports());
+        assertEquals(1, summary.getReportsWithoutCompensation());
+        assertEquals(3, summary.getStatistics().getCount());
+        assertEquals(600, summary.getStatistics().getTotal());
+        assertEquals(200.0, summary.getStatistics().getAverage(), 0.0);
+        assertEquals(100, summary.getStatistics().getMin());
+        assertEquals(300, summary.getStatistics().getMax());
+        assertEquals(200, summary.getStatistics().getP50());
+        assertEquals(300, summary.getStatistics().getP90());
+
+        assertEquals(2, summary.getGroups().size());
+        assertEquals(300, summary.getGroups().get("Finance").getTotal());
+        assertEquals(1, summary.getGroups().get("Legal").getCount());
+    }
+
     @Test
     public void testCreateInvalidEmployeeId() {
         Compensation testCompensation = new Compensation();
@@ -75,7 +211,7 @@ public class CompensationServiceImplTest {
         String invalidEmployeeId = "00000000-0000-0000-0000-000000000000";
         testCompensation.setEmployeeId(invalidEmployeeId);
         testCompensation.setSalary(70000);
-        testCompensation.setEffectiveDate("08/25/2018");
+        testCompensation.setEffectiveDate(LocalDate.of(2018, 8, 25));
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -104,6 +240,14 @@ public class CompensationServiceImplTest {
 
     }
 
+    private void createCompensation(String employeeId, int salary, LocalDate effectiveDate) {
+        Compensation compensation = new Compensation();
+        compensation.setEmployeeId(employeeId);
+        compensation.setSalary(salary);
+        compensation.setEffectiveDate(effectiveDate);
+        compensationService.create(compensation);
+    }
+
     private static void assertCompensationEquivalence(Compensation expected, Compensation actual) {
         assertEquals(expected.getEmployeeId(), actual.getEmployeeId());
         assertEquals(expected.getEffectiveDate(), actual.getEffectiveDate());
@@ -0,0 +1,128 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeHierarchy;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.EmployeeHierarchyService;
+import com.mindex.challenge.service.EmployeeService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class EmployeeHierarchyServiceImplTest {
+
+    private String employeeIdReportCountUrl;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeHierarchyService employeeHierarchyService;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Before
+    public void setup() {
+        employeeIdReportCountUrl = "http://localhost:" + port + "/employee/{id}/reporting-structure/count";
+    }
+
+    @Test
+    public void testBootstrappedHierarchy() {
+
+        // count check for the root node in the static DB (John Lennon)
+        ReportingStructure reportingStructure = restTemplate.getForEntity(employeeIdReportCountUrl,
+                ReportingStructure.class, "16a596ae-edd3-4847-99fe-c4518e82c86f").getBody();
+        assertEquals(4, reportingStructure.getNumberOfReports());
+
+        // ancestor path of a leaf node in the static DB (Pete Best)
+        EmployeeHierarchy hierarchy = employeeHierarchyService.read("62c1084e-6e34-4630-93fd-9153afb65309");
+        assertEquals(Arrays.asList("16a596ae-edd3-4847-99fe-c4518e82c86f", "03aa1462-ffa9-4978-901b-7c001562cf6f"),
+                hierarchy.getAncestors());
+        assertEquals("03aa1462-ffa9-4978-901b-7c001562cf6f", hierarchy.getManagerId());
+    }
+
+    @Test
+    public void testHierarchyMaintainedOnCreateUpdate() {
+        Employee leaf = employeeService.create(newEmployee("Leaf"));
+        Employee middle = employeeService.create(newEmployee("Middle", leaf));
+        Employee top = employeeService.create(newEmployee("Top"));
+
+        assertEquals(1, employeeHierarchyService.read(middle.getEmployeeId()).getDescendantCount());
+        assertEquals(0, employeeHierarchyService.read(top.getEmployeeId()).getDescendantCount());
+
+        // attach the middle manager's subtree below the top manager
+        top.setDirectReports(new ArrayList<>(Collections.singletonList(stub(middle.getEmployeeId()))));
+        employeeService.update(top);
+
+        assertEquals(2, employeeService.getEmployeeReportCount(top.getEmployeeId()).getNumberOfReports());
+        assertEquals(Arrays.asList(top.getEmployeeId(), middle.getEmployeeId()),
+                employeeHierarchyService.read(leaf.getEmployeeId()).getAncestors());
+
+        // detach it again
+        top.setDirectReports(null);
+        employeeService.update(top);
+
+        assertEquals(0, employeeService.getEmployeeReportCount(top.getEmployeeId()).getNumberOfReports());
+        assertNull(employeeHierarchyService.read(middle.getEmployeeId()).getManagerId());
+        assertEquals(Collections.singletonList(middle.getEmployeeId()),
+                employeeHierarchyService.read(leaf.getEmployeeId()).getAncestors());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testCycleRejectedOnUpdate() {
+        Employee leaf = employeeService.create(newEmployee("Leaf"));
+        Employee top = employeeService.create(newEmployee("Top", leaf));
+
+        // make the top manager a direct report of its own report
+        leaf.setDirectReports(new ArrayList<>(Collections.singletonList(stub(top.getEmployeeId()))));
+        employeeService.update(leaf);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testSecondManagerRejectedOnCreate() {
+        Employee leaf = employeeService.create(newEmployee("Leaf"));
+        employeeService.create(newEmployee("First", leaf));
+
+        employeeService.create(newEmployee("Second", leaf));
+    }
+
+    private static Employee newEmployee(String firstName, Employee... directReports) {
+        Employee employee = new Employee();
+        employee.setFirstName(firstName);
+        employee.setLastName("Doe");
+        employee.setDepartment("Engineering");
+        employee.setPosition("Developer");
+        if (directReports.length > 0) {
+            employee.setDirectReports(new ArrayList<>());
+            for (Employee directReport : directReports) {
+                employee.getDirectReports().add(stub(directReport.getEmployeeId()));
+            }
+        }
+
+        return employee;
+    }
+
+    private static Employee stub(String employeeId) {
+        Employee employee = new Employee();
+        employee.setEmployeeId(employeeId);
+        return employee;
+    }
+}
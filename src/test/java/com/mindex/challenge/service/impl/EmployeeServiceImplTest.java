@@ -1,9 +1,14 @@
 package com.mindex.challenge.service.impl;
 
 import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.BatchReadRequest;
+import com.mindex.challenge.data.BatchReadResult;
+import com.mindex.challenge.data.CacheStatistics;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeImportResult;
 import com.mindex.challenge.data.ReportingStructure;
 import com.mindex.challenge.service.EmployeeService;
+import com.mindex.challenge.service.TraversalMode;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -13,15 +18,28 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.http.*;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -43,6 +61,9 @@ public class EmployeeServiceImplTest {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Before
     public void setup() {
         employeeUrl = "http://localhost:" + port + "/employee";
@@ -87,6 +108,266 @@ public class EmployeeServiceImplTest {
         assertEmployeeEquivalence(readEmployee, updatedEmployee);
     }
 
+    @Test
+    public void testConditionalRequests() {
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("Yoko");
+        Employee createdEmployee = restTemplate.postForEntity(employeeUrl, testEmployee, Employee.class).getBody();
+        assertNotNull(createdEmployee);
+
+        ResponseEntity<Employee> readResponse = restTemplate.getForEntity(employeeIdUrl, Employee.class,
+                createdEmployee.getEmployeeId());
+        String etag = readResponse.getHeaders().getETag();
+        assertNotNull(etag);
+
+        // an unchanged employee is not sent again
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<Employee> conditionalResponse = restTemplate.exchange(employeeIdUrl, HttpMethod.GET,
+                new HttpEntity<>(headers), Employee.class, createdEmployee.getEmployeeId());
+        assertEquals(HttpStatus.NOT_MODIFIED, conditionalResponse.getStatusCode());
+        assertNull(conditionalResponse.getBody());
+
+        // a write based on the current version succeeds, a second one based on the same version does not
+        headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setIfMatch(etag);
+        createdEmployee.setLastName("Ono");
+        ResponseEntity<Employee> updateResponse = restTemplate.exchange(employeeIdUrl, HttpMethod.PUT,
+                new HttpEntity<>(createdEmployee, headers), Employee.class, createdEmployee.getEmployeeId());
+        assertEquals(HttpStatus.OK, updateResponse.getStatusCode());
+        assertNotNull(updateResponse.getHeaders().getETag());
+        assertFalse(etag.equals(updateResponse.getHeaders().getETag()));
+
+        createdEmployee.setLastName("Lennon");
+        updateResponse = restTemplate.exchange(employeeIdUrl, HttpMethod.PUT, new HttpEntity<>(createdEmployee, headers),
+                Employee.class, createdEmployee.getEmployeeId());
+        assertEquals(HttpStatus.PRECONDITION_FAILED, updateResponse.getStatusCode());
+
+        // reporting structures are revalidated against the hierarchy version
+        ResponseEntity<ReportingStructure> reportingResponse = restTemplate.getForEntity(employeeIdReportingUrl,
+                ReportingStructure.class, "16a596ae-edd3-4847-99fe-c4518e82c86f");
+        headers = new HttpHeaders();
+        headers.setIfNoneMatch(reportingResponse.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, restTemplate.exchange(employeeIdReportingUrl, HttpMethod.GET,
+                new HttpEntity<>(headers), ReportingStructure.class, "16a596ae-edd3-4847-99fe-c4518e82c86f")
+                .getStatusCode());
+    }
+
+    @Test
+    public void testVersionedUpdateAndPatch() {
+        Employee report = employeeService.create(new Employee());
+
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("Cynthia");
+        testEmployee.setDirectReports(new ArrayList<>(Collections.singletonList(report)));
+        Employee createdEmployee = employeeService.create(testEmployee);
+        assertEquals(Long.valueOf(0), createdEmployee.getVersion());
+
+        // a field level change leaves the rest of the document alone
+        Employee patchedEmployee = employeeService.patch(createdEmployee.getEmployeeId(),
+                Collections.<String, Object>singletonMap("lastName", "Powell"), 0L);
+        assertEquals(Long.valueOf(1), patchedEmployee.getVersion());
+        assertEquals("Cynthia", patchedEmployee.getFirstName());
+        assertEquals("Powell", patchedEmployee.getLastName());
+        assertEquals(1, patchedEmployee.getDirectReports().size());
+        assertEquals("Powell", employeeService.read(createdEmployee.getEmployeeId()).getLastName());
+
+        try {
+            employeeService.patch(createdEmployee.getEmployeeId(),
+                    Collections.<String, Object>singletonMap("lastName", "Lennon"), 0L);
+            fail("Patch of an outdated version accepted");
+        } catch (OptimisticLockingFailureException e) {
+            assertEquals("Powell", employeeService.read(createdEmployee.getEmployeeId()).getLastName());
+        }
+
+        try {
+            employeeService.patch(createdEmployee.getEmployeeId(),
+                    Collections.<String, Object>singletonMap("directReports", null), null);
+            fail("Patch of directReports accepted");
+        } catch (RuntimeException e) {
+            assertEquals(1, employeeService.read(createdEmployee.getEmployeeId()).getDirectReports().size());
+        }
+
+        // a full update based on the outdated version conflicts
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        createdEmployee.setFirstName("Cyn");
+        ResponseEntity<Employee> updateResponse = restTemplate.exchange(employeeIdUrl, HttpMethod.PUT,
+                new HttpEntity<>(createdEmployee, headers), Employee.class, createdEmployee.getEmployeeId());
+        assertEquals(HttpStatus.CONFLICT, updateResponse.getStatusCode());
+        assertEquals("Cynthia", employeeService.read(createdEmployee.getEmployeeId()).getFirstName());
+    }
+
+    @Test
+    public void testBulkCreate() {
+        String managerId = UUID.randomUUID().toString();
+        String reportId = UUID.randomUUID().toString();
+        String missingId = UUID.randomUUID().toString();
+
+        // the second employee repeats the manager's employeeId, the manager references a missing employee
+        String employees = "["
+                + "{\"employeeId\":\"" + managerId + "\",\"firstName\":\"John\",\"directReports\":["
+                + "{\"employeeId\":\"" + reportId + "\"},{\"employeeId\":\"" + missingId + "\"}]},"
+                + "{\"employeeId\":\"" + managerId + "\",\"firstName\":\"Duplicate\"},"
+                + "{\"employeeId\":\"" + reportId + "\",\"firstName\":\"Paul\"}"
+                + "]";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        EmployeeImportResult result = restTemplate.postForEntity(employeeUrl + "/bulk?ordered=false",
+                new HttpEntity<>(employees, headers), EmployeeImportResult.class).getBody();
+
+        assertNotNull(result);
+        assertEquals(3, result.getReceived());
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getFailed());
+        assertEquals(1, result.getErrors().get(0).getIndex());
+        assertEquals(Collections.singletonList(missingId), result.getUnresolvedReferences());
+        assertEquals("Paul", employeeService.read(reportId).getFirstName());
+    }
+
+    @Test
+    public void testSearch() {
+        String department = "Search " + UUID.randomUUID();
+
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("Jane");
+        testEmployee.setLastName("Searchable");
+        testEmployee.setDepartment(department);
+        testEmployee.setPosition("Developer");
+        Employee createdEmployee = restTemplate.postForEntity(employeeUrl, testEmployee, Employee.class).getBody();
+        assertNotNull(createdEmployee);
+
+        Employee[] byDepartment = restTemplate.getForEntity(employeeUrl + "?department={department}",
+                Employee[].class, department).getBody();
+        assertNotNull(byDepartment);
+        assertEquals(1, byDepartment.length);
+        assertEmployeeEquivalence(createdEmployee, byDepartment[0]);
+
+        // names given along with the department narrow it down
+        Employee[] byDepartmentAndName = restTemplate.getForEntity(employeeUrl
+                + "?department={department}&lastName=Searchable&firstName=Jane", Employee[].class, department).getBody();
+        assertNotNull(byDepartmentAndName);
+        assertEquals(1, byDepartmentAndName.length);
+        Employee[] byDepartmentAndOtherName = restTemplate.getForEntity(employeeUrl
+                + "?department={department}&firstName=John", Employee[].class, department).getBody();
+        assertNotNull(byDepartmentAndOtherName);
+        assertEquals(0, byDepartmentAndOtherName.length);
+
+        Employee[] byName = restTemplate.getForEntity(employeeUrl + "?lastName=Lennon&firstName=John",
+                Employee[].class).getBody();
+        assertNotNull(byName);
+        assertEquals(1, byName.length);
+        assertEquals("16a596ae-edd3-4847-99fe-c4518e82c86f", byName[0].getEmployeeId());
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR,
+                restTemplate.getForEntity(employeeUrl, String.class).getStatusCode());
+    }
+
+    @Test
+    public void testManagementChain() {
+
+        // George Harrison reports to Ringo Starr, who reports to John Lennon
+        Employee[] managementChain = restTemplate.getForEntity(employeeIdUrl + "/management-chain", Employee[].class,
+                "c0c2293d-16bd-4603-8e08-638a9d18b22c").getBody();
+
+        assertNotNull(managementChain);
+        assertEquals(2, managementChain.length);
+        assertEquals("03aa1462-ffa9-4978-901b-7c001562cf6f", managementChain[0].getEmployeeId());
+        assertEquals("16a596ae-edd3-4847-99fe-c4518e82c86f", managementChain[1].getEmployeeId());
+
+        // George Harrison and Pete Best share Ringo Starr, George Harrison and Paul McCartney only John Lennon
+        Employee commonManager = restTemplate.getForEntity(employeeIdUrl + "/common-manager/{otherId}", Employee.class,
+                "c0c2293d-16bd-4603-8e08-638a9d18b22c", "62c1084e-6e34-4630-93fd-9153afb65309").getBody();
+        assertNotNull(commonManager);
+        assertEquals("03aa1462-ffa9-4978-901b-7c001562cf6f", commonManager.getEmployeeId());
+
+        commonManager = restTemplate.getForEntity(employeeIdUrl + "/common-manager/{otherId}", Employee.class,
+                "c0c2293d-16bd-4603-8e08-638a9d18b22c", "b7839309-3348-463b-a7e3-5de1c168beb3").getBody();
+        assertNotNull(commonManager);
+        assertEquals("16a596ae-edd3-4847-99fe-c4518e82c86f", commonManager.getEmployeeId());
+    }
+
+    @Test
+    public void testManagerIdFollowsDirectReports() {
+        Employee report = new Employee();
+        report.setFirstName("Stuart");
+        report.setLastName("Sutcliffe");
+        report = employeeService.create(report);
+
+        Employee manager = new Employee();
+        manager.setFirstName("Brian");
+        manager.setLastName("Epstein");
+        manager.setDirectReports(new ArrayList<>(Collections.singletonList(report)));
+        manager = employeeService.create(manager);
+
+        assertEquals(manager.getEmployeeId(), employeeService.read(report.getEmployeeId()).getManagerId());
+
+        manager.setDirectReports(new ArrayList<>());
+        employeeService.update(manager);
+
+        assertNull(employeeService.read(report.getEmployeeId()).getManagerId());
+    }
+
+    @Test
+    public void testReadIsCached() {
+        String employeeId = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+        String cachesUrl = "http://localhost:" + port + "/admin/caches";
+
+        employeeService.read(employeeId);
+        CacheStatistics before = restTemplate.exchange(cachesUrl, HttpMethod.GET, null,
+                new ParameterizedTypeReference<Map<String, CacheStatistics>>() {}).getBody().get("employee");
+
+        // callers modify what they read, which must not leak into the cache
+        Employee employee = employeeService.read(employeeId);
+        employee.setFirstName("Julian");
+        employee.getDirectReports().clear();
+
+        Employee cachedEmployee = employeeService.read(employeeId);
+        assertEquals("John", cachedEmployee.getFirstName());
+        assertEquals(2, cachedEmployee.getDirectReports().size());
+
+        CacheStatistics after = restTemplate.exchange(cachesUrl, HttpMethod.GET, null,
+                new ParameterizedTypeReference<Map<String, CacheStatistics>>() {}).getBody().get("employee");
+        assertTrue(after.getHitCount() >= before.getHitCount() + 2);
+    }
+
+    @Test
+    public void testReportingStructureCacheFollowsChanges() {
+        Employee report = new Employee();
+        report.setFirstName("Mal");
+        report = employeeService.create(report);
+
+        Employee manager = new Employee();
+        manager.setDirectReports(new ArrayList<>(Collections.singletonList(report)));
+        manager = employeeService.create(manager);
+
+        ReportingStructure reportingStructure = employeeService.getEmployeeReportingStructure(manager.getEmployeeId());
+        assertEquals(1, reportingStructure.getNumberOfReports());
+
+        // a cached result is handed out as a copy, so changing one does not affect the next caller
+        reportingStructure.getEmployee().getDirectReports().get(0).setFirstName("Inara");
+        ReportingStructure cachedReportingStructure =
+                employeeService.getEmployeeReportingStructure(manager.getEmployeeId());
+        assertNotSame(reportingStructure, cachedReportingStructure);
+        assertEquals("Mal", cachedReportingStructure.getEmployee().getDirectReports().get(0).getFirstName());
+
+        // a change to a report's data is visible right away
+        report.setFirstName("Neil");
+        employeeService.update(report);
+        reportingStructure = employeeService.getEmployeeReportingStructure(manager.getEmployeeId());
+        assertEquals("Neil", reportingStructure.getEmployee().getDirectReports().get(0).getFirstName());
+
+        // and so is a change to the hierarchy
+        Employee newReport = employeeService.create(new Employee());
+        manager.getDirectReports().add(newReport);
+        employeeService.update(manager);
+        assertEquals(2, employeeService.getEmployeeReportingStructure(manager.getEmployeeId()).getNumberOfReports());
+        assertEquals(2, employeeService.getEmployeeReportCount(manager.getEmployeeId()).getNumberOfReports());
+    }
+
     @Test
     public void testGetReportingStructureForRootNode() {
 
@@ -158,6 +439,102 @@ public class EmployeeServiceImplTest {
         assertEquals(responseEntity.getStatusCodeValue(), 500);
     }
 
+    @Test
+    public void testGetReportingStructureWithDepthAndLimit() {
+
+        // expand only the direct reports of the root node in the static DB (John Lennon)
+        ReportingStructure reportingStructure = restTemplate.getForEntity(employeeIdReportingUrl + "?depth=1",
+                ReportingStructure.class, "16a596ae-edd3-4847-99fe-c4518e82c86f").getBody();
+
+        assertNotNull(reportingStructure);
+        assertTrue(reportingStructure.isTruncated());
+        assertFalse(reportingStructure.isNumberOfReportsApproximate());
+        assertEquals(4, reportingStructure.getNumberOfReports());
+
+        Employee ringo = reportingStructure.getEmployee().getDirectReports().get(1);
+        assertEquals("Ringo", ringo.getFirstName());
+        assertEquals("62c1084e-6e34-4630-93fd-9153afb65309", ringo.getDirectReports().get(0).getEmployeeId());
+        assertNull(ringo.getDirectReports().get(0).getFirstName());
+
+        // expand a single report
+        reportingStructure = employeeService.getEmployeeReportingStructure("16a596ae-edd3-4847-99fe-c4518e82c86f",
+                Integer.MAX_VALUE, 1);
+
+        assertTrue(reportingStructure.isTruncated());
+        assertEquals("Paul", reportingStructure.getEmployee().getDirectReports().get(0).getFirstName());
+        assertNull(reportingStructure.getEmployee().getDirectReports().get(1).getFirstName());
+
+        // limits which are not reached leave the reporting structure complete
+        reportingStructure = employeeService.getEmployeeReportingStructure("16a596ae-edd3-4847-99fe-c4518e82c86f",
+                2, 4);
+
+        assertFalse(reportingStructure.isTruncated());
+        assertEquals(4, reportingStructure.getNumberOfReports());
+    }
+
+    @Test
+    public void testStreamReportingStructure() {
+
+        // nested stream for the root node in the static DB (John Lennon) matches the reporting structure
+        ReportingStructure streamed = restTemplate.getForEntity(employeeIdReportingUrl + "/stream",
+                ReportingStructure.class, "16a596ae-edd3-4847-99fe-c4518e82c86f").getBody();
+        ReportingStructure expected = employeeService.getEmployeeReportingStructure(
+                "16a596ae-edd3-4847-99fe-c4518e82c86f", TraversalMode.SEQUENTIAL);
+
+        assertNotNull(streamed);
+        assertEquals(4, streamed.getNumberOfReports());
+        assertEmployeeTreeEquivalence(expected.getEmployee(), streamed.getEmployee());
+
+        // NDJSON stream has one line per employee, starting with the root
+        String lines = restTemplate.getForEntity(employeeIdReportingUrl + "/stream?format=ndjson", String.class,
+                "16a596ae-edd3-4847-99fe-c4518e82c86f").getBody();
+
+        assertNotNull(lines);
+        assertEquals(5, lines.trim().split("\n").length);
+        assertTrue(lines.startsWith("{\"employeeId\":\"16a596ae-edd3-4847-99fe-c4518e82c86f\""));
+    }
+
+    @Test
+    public void testGetReportingStructureBatchedMatchesSequential() {
+
+        // both traversals must produce the same tree for the root node in the static DB (John Lennon)
+        ReportingStructure sequential = employeeService.getEmployeeReportingStructure(
+                "16a596ae-edd3-4847-99fe-c4518e82c86f", TraversalMode.SEQUENTIAL);
+        ReportingStructure batched = employeeService.getEmployeeReportingStructure(
+                "16a596ae-edd3-4847-99fe-c4518e82c86f", TraversalMode.BATCHED);
+
+        assertEquals(sequential.getNumberOfReports(), batched.getNumberOfReports());
+        assertEmployeeTreeEquivalence(sequential.getEmployee(), batched.getEmployee());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testGetReportingStructureBatchedForCycleInEmployeeTree() {
+
+        String parentEmployeeId = UUID.randomUUID().toString();
+        String childEmployeeId = UUID.randomUUID().toString();
+
+        Employee parentEmployee = new Employee();
+        parentEmployee.setEmployeeId(parentEmployeeId);
+        parentEmployee.setFirstName("John");
+        parentEmployee.setLastName("Doe");
+        employeeRepository.save(parentEmployee);
+
+        Employee childEmployee = new Employee();
+        childEmployee.setEmployeeId(childEmployeeId);
+        childEmployee.setFirstName("David");
+        childEmployee.setLastName("Beckham");
+        // make the parentEmployee a direct report of childEmployee
+        childEmployee.setDirectReports(new ArrayList<>(Collections.singletonList(employeeRepository.findByEmployeeId(parentEmployeeId))));
+        employeeRepository.save(childEmployee);
+
+        // make childEmployee a directReport of parentEmployee
+        parentEmployee = employeeRepository.findByEmployeeId(parentEmployeeId);
+        parentEmployee.setDirectReports(new ArrayList<>(Collections.singletonList(employeeRepository.findByEmployeeId(childEmployeeId))));
+        employeeRepository.save(parentEmployee);
+
+        employeeService.getEmployeeReportingStructure(parentEmployeeId, TraversalMode.BATCHED);
+    }
+
     @Test
     public void testReportingStructureForNonExistentEmployee() {
 
@@ -169,10 +546,87 @@ public class EmployeeServiceImplTest {
         assertEquals(responseEntity.getStatusCodeValue(), 500);
     }
 
+    @Test
+    public void testBatchRead() {
+        Employee employee = new Employee();
+        employee.setFirstName("Batch");
+        employee.setLastName("Read");
+        employee = employeeService.create(employee);
+
+        String seededEmployeeId = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+        String missingEmployeeId = UUID.randomUUID().toString();
+
+        BatchReadRequest request = new BatchReadRequest();
+        request.setIds(Arrays.asList(missingEmployeeId, employee.getEmployeeId(), seededEmployeeId,
+                employee.getEmployeeId()));
+        request.setFields(Collections.singletonList("lastName"));
+
+        BatchReadResult<Employee> result = restTemplate.exchange(employeeUrl + "/_batch", HttpMethod.POST,
+                new HttpEntity<>(request), new ParameterizedTypeReference<BatchReadResult<Employee>>() {}).getBody();
+        assertNotNull(result);
+
+        // duplicate ids are read once, the found employees keep the order of the request
+        assertEquals(2, result.getFound().size());
+        assertEquals(employee.getEmployeeId(), result.getFound().get(0).getEmployeeId());
+        assertEquals(seededEmployeeId, result.getFound().get(1).getEmployeeId());
+        assertEquals(Collections.singletonList(missingEmployeeId), result.getMissing());
+
+        // only the requested fields and the employeeId are returned
+        assertEquals("Read", result.getFound().get(0).getLastName());
+        assertNull(result.getFound().get(0).getFirstName());
+
+        request.setFields(Collections.singletonList("salary"));
+        assertEquals(500, restTemplate.postForEntity(employeeUrl + "/_batch", request, String.class)
+                .getStatusCodeValue());
+    }
+
+    @Test
+    public void testMetrics() {
+        employeeService.getEmployeeReportingStructure("16a596ae-edd3-4847-99fe-c4518e82c86f", TraversalMode.BATCHED);
+
+        String metrics = restTemplate.getForObject("http://localhost:" + port + "/actuator/prometheus", String.class);
+        assertNotNull(metrics);
+
+        // service and repository timers, traversal statistics and cache statistics
+        assertTrue(metrics.contains("challenge_service_seconds_count{method=\"getEmployeeReportingStructure\""));
+        assertTrue(metrics.contains("challenge_repository_seconds_count{"));
+        assertTrue(metrics.contains("reporting_structure_round_trips_count{traversal=\"BATCHED\""));
+        assertTrue(metrics.contains("reporting_structure_depth_max{traversal=\"BATCHED\""));
+        assertTrue(metrics.contains("cache_gets_total{cache=\"employee\""));
+
+        // MongoTemplate operations are round trips as well as repository calls
+        AtomicInteger roundTrips = new AtomicInteger();
+        AtomicInteger previousRoundTrips = TraversalMetrics.attach(roundTrips);
+        try {
+            mongoTemplate.count(new Query(), Employee.class);
+            employeeRepository.findByEmployeeId("16a596ae-edd3-4847-99fe-c4518e82c86f");
+        } finally {
+            TraversalMetrics.attach(previousRoundTrips);
+        }
+        assertEquals(2, roundTrips.get());
+    }
+
     private static void assertEmployeeEquivalence(Employee expected, Employee actual) {
         assertEquals(expected.getFirstName(), actual.getFirstName());
         assertEquals(expected.getLastName(), actual.getLastName());
         assertEquals(expected.getDepartment(), actual.getDepartment());
         assertEquals(expected.getPosition(), actual.getPosition());
     }
+
+    private static void assertEmployeeTreeEquivalence(Employee expected, Employee actual) {
+        assertEquals(expected.getEmployeeId(), actual.getEmployeeId());
+        assertEmployeeEquivalence(expected, actual);
+
+        List<Employee> expectedReports = expected.getDirectReports();
+        List<Employee> actualReports = actual.getDirectReports();
+        if (expectedReports == null || actualReports == null) {
+            assertEquals(expectedReports, actualReports);
+            return;
+        }
+
+        assertEquals(expectedReports.size(), actualReports.size());
+        for (int i = 0; i < expectedReports.size(); i++) {
+            assertEmployeeTreeEquivalence(expectedReports.get(i), actualReports.get(i));
+        }
+    }
 }
@@ -0,0 +1,96 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.EmployeeImportResult;
+import com.mindex.challenge.data.OrgGeneratorSettings;
+import com.mindex.challenge.service.CompensationService;
+import com.mindex.challenge.service.EmployeeService;
+import com.mindex.challenge.service.OrgGeneratorService;
+import com.mindex.challenge.service.TraversalMode;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrgGeneratorServiceImplTest {
+
+    @Autowired
+    private OrgGeneratorService orgGeneratorService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private CompensationService compensationService;
+
+    @Test
+    public void testGenerate() {
+        OrgGeneratorSettings settings = settings(1);
+        settings.setSize(500);
+        settings.setFanOutDistribution(OrgGeneratorSettings.POWER_LAW_DISTRIBUTION);
+
+        EmployeeImportResult result = orgGeneratorService.generate(settings);
+        assertEquals(500, result.getInserted());
+
+        // employeeIds are derived from the settings, employee 0 being the root
+        assertEquals(499, employeeService.getEmployeeReportingStructure(settings.employeeId(0),
+                TraversalMode.SEQUENTIAL).getNumberOfReports());
+        assertEquals("Chief Executive Officer", employeeService.read(settings.employeeId(0)).getPosition());
+        assertFalse(compensationService.readHistory(settings.employeeId(499)).isEmpty());
+    }
+
+    @Test
+    public void testMaxDepth() {
+        OrgGeneratorSettings settings = settings(2);
+        settings.setFanOut(2);
+        settings.setMaxDepth(3);
+
+        // 1 + 2 + 4 employees, the size is not reached
+        assertEquals(7, orgGeneratorService.generate(settings).getInserted());
+        assertEquals(6, employeeService.getEmployeeReportingStructure(settings.employeeId(0),
+                TraversalMode.SEQUENTIAL).getNumberOfReports());
+    }
+
+    @Test
+    public void testRegenerate() {
+        OrgGeneratorSettings settings = settings(4);
+        settings.setSize(20);
+        assertEquals(20, orgGeneratorService.generate(settings).getInserted());
+
+        // the employees and compensations of the first run are kept, the duplicates are reported as failures
+        int compensations = compensationService.readHistory(settings.employeeId(19)).size();
+        assertTrue(orgGeneratorService.generate(settings).getFailed() > 0);
+        assertEquals(compensations, compensationService.readHistory(settings.employeeId(19)).size());
+        assertEquals(19, employeeService.getEmployeeReportingStructure(settings.employeeId(0),
+                TraversalMode.SEQUENTIAL).getNumberOfReports());
+    }
+
+    @Test
+    public void testCycles() {
+        OrgGeneratorSettings settings = settings(3);
+        settings.setCycles(2);
+        settings.setCompensations(false);
+        orgGeneratorService.generate(settings);
+
+        try {
+            employeeService.getEmployeeReportingStructure(settings.employeeId(0), TraversalMode.SEQUENTIAL);
+            fail("Generated cycle not detected");
+        } catch (RuntimeException e) {
+            assertEquals("Employee reporting structure contains a cycle", e.getMessage());
+        }
+    }
+
+    private static OrgGeneratorSettings settings(long seed) {
+        OrgGeneratorSettings settings = new OrgGeneratorSettings();
+        settings.setSize(100);
+        settings.setSeed(seed);
+        return settings;
+    }
+}
@@ -0,0 +1,90 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.ReactiveEmployeeService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+public class ReactiveEmployeeServiceImplTest {
+
+    private static final String JOHN_LENNON_ID = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+
+    @Autowired
+    private ReactiveEmployeeService reactiveEmployeeService;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    public void testReportingStructure() {
+        ReportingStructure reportingStructure =
+                reactiveEmployeeService.getEmployeeReportingStructure(JOHN_LENNON_ID).block();
+
+        assertNotNull(reportingStructure);
+        assertEquals(4, reportingStructure.getNumberOfReports());
+        assertEquals("John", reportingStructure.getEmployee().getFirstName());
+        assertEquals("Ringo", reportingStructure.getEmployee().getDirectReports().get(1).getFirstName());
+
+        // served by WebFlux on the same path, and revalidated by the hierarchy version
+        String eTag = webTestClient.get().uri("/employee/{id}/reporting-structure", JOHN_LENNON_ID)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.numberOfReports").isEqualTo(4)
+                .returnResult().getResponseHeaders().getETag();
+        assertNotNull(eTag);
+
+        webTestClient.get().uri("/employee/{id}/reporting-structure", JOHN_LENNON_ID)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    public void testCreateReadUpdate() {
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("Grace");
+        testEmployee.setLastName("Hopper");
+        testEmployee.setDepartment("Engineering");
+        testEmployee.setPosition("Developer");
+        testEmployee.setDirectReports(new ArrayList<>());
+
+        Employee createdEmployee = reactiveEmployeeService.create(testEmployee).block();
+        assertNotNull(createdEmployee);
+        assertNotNull(createdEmployee.getEmployeeId());
+
+        Employee readEmployee = reactiveEmployeeService.read(createdEmployee.getEmployeeId()).block();
+        assertNotNull(readEmployee);
+        assertEquals("Hopper", readEmployee.getLastName());
+
+        readEmployee.setPosition("Development Manager");
+        Employee updatedEmployee = reactiveEmployeeService.update(readEmployee).block();
+        assertNotNull(updatedEmployee);
+        assertEquals("Development Manager",
+                reactiveEmployeeService.read(createdEmployee.getEmployeeId()).block().getPosition());
+    }
+
+    @Test
+    public void testInvalidEmployeeId() {
+        try {
+            reactiveEmployeeService.getEmployeeReportingStructure("invalid-id").block();
+            fail("Invalid employeeId not detected");
+        } catch (RuntimeException e) {
+            assertEquals("Invalid employeeId: invalid-id", e.getMessage());
+        }
+    }
+}
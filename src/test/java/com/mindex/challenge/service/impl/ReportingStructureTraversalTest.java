@@ -0,0 +1,204 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.EmployeeService;
+import com.mindex.challenge.service.TraversalMode;
+import org.bson.Document;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Compares every TraversalMode against the sequential traversal on generated hierarchies. The embedded MongoServer has
+ * no $graphLookup, so GRAPH_LOOKUP is checked by stitching the result the aggregation would return.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ReportingStructureTraversalTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeServiceImpl employeeServiceImpl;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void testDeepHierarchy() {
+        // a single chain of 200 employees
+        String rootEmployeeId = saveHierarchy(1, 200);
+
+        assertTraversalsEquivalent(rootEmployeeId, 199);
+    }
+
+    @Test
+    public void testWideHierarchy() {
+        // one manager with 300 direct reports
+        String rootEmployeeId = saveHierarchy(300, 2);
+
+        assertTraversalsEquivalent(rootEmployeeId, 300);
+    }
+
+    @Test
+    public void testBalancedHierarchy() {
+        // 5 levels with a fan-out of 4: 1 + 4 + 16 + 64 + 256 employees
+        String rootEmployeeId = saveHierarchy(4, 5);
+
+        assertTraversalsEquivalent(rootEmployeeId, 340);
+    }
+
+    @Test
+    public void testWideAndDeepHierarchy() {
+        // 3 levels with a fan-out of 30, so that every subtree of the root is wide itself: 1 + 30 + 900 employees
+        String rootEmployeeId = saveHierarchy(30, 3);
+
+        assertTraversalsEquivalent(rootEmployeeId, 930);
+    }
+
+    @Test
+    public void testCycleInGeneratedHierarchy() {
+        String rootEmployeeId = saveHierarchy(3, 4);
+
+        // make the root a direct report of its first leaf
+        Employee leaf = employeeService.read(rootEmployeeId);
+        while (leaf.getDirectReports() != null) {
+            leaf = employeeService.read(leaf.getDirectReports().get(0).getEmployeeId());
+        }
+        leaf.setDirectReports(new ArrayList<>(Collections.singletonList(stub(rootEmployeeId))));
+        employeeRepository.save(leaf);
+
+        for (TraversalMode traversalMode : TraversalMode.values()) {
+            try {
+                getEmployeeReportingStructure(rootEmployeeId, traversalMode);
+                fail("Cycle not detected by " + traversalMode + " traversal");
+            } catch (RuntimeException e) {
+                assertEquals("Employee reporting structure contains a cycle", e.getMessage());
+            }
+        }
+    }
+
+    private void assertTraversalsEquivalent(String rootEmployeeId, int expectedNumberOfReports) {
+        ReportingStructure expected = employeeService.getEmployeeReportingStructure(rootEmployeeId,
+                TraversalMode.SEQUENTIAL);
+        assertEquals(expectedNumberOfReports, expected.getNumberOfReports());
+
+        for (TraversalMode traversalMode : TraversalMode.values()) {
+            ReportingStructure actual = getEmployeeReportingStructure(rootEmployeeId, traversalMode);
+
+            assertEquals(expected.getNumberOfReports(), actual.getNumberOfReports());
+            assertEmployeeTreeEquivalence(expected.getEmployee(), actual.getEmployee());
+        }
+    }
+
+    private ReportingStructure getEmployeeReportingStructure(String rootEmployeeId, TraversalMode traversalMode) {
+        if (traversalMode == TraversalMode.GRAPH_LOOKUP) {
+            return employeeServiceImpl.stitchGraphLookupResult(rootEmployeeId, graphLookupResult(rootEmployeeId));
+        }
+
+        return employeeService.getEmployeeReportingStructure(rootEmployeeId, traversalMode);
+    }
+
+    /**
+     * @return what the $graphLookup aggregation returns for the employee: its document, with the document of every
+     * employee reachable from it in the reports field
+     */
+    private Document graphLookupResult(String rootEmployeeId) {
+        String collectionName = mongoTemplate.getCollectionName(Employee.class);
+        Document rootDocument = mongoTemplate.findById(rootEmployeeId, Document.class, collectionName);
+
+        Map<Object, Document> reports = new LinkedHashMap<>();
+        Queue<Document> documentQueue = new LinkedList<>(Collections.singletonList(rootDocument));
+        while (!documentQueue.isEmpty()) {
+            List<?> directReports = documentQueue.remove().get("directReports", List.class);
+            if (directReports == null) {
+                continue;
+            }
+            for (Object directReport : directReports) {
+                Object employeeId = ((Document) directReport).get("_id");
+                if (!reports.containsKey(employeeId)) {
+                    Document report = mongoTemplate.findById(employeeId, Document.class, collectionName);
+                    reports.put(employeeId, report);
+                    documentQueue.add(report);
+                }
+            }
+        }
+
+        rootDocument.put("reports", new ArrayList<>(reports.values()));
+        return rootDocument;
+    }
+
+    /**
+     * saves a complete tree in which every manager has the same number of direct reports
+     * @param fanOut : number of direct reports of every manager
+     * @param depth : number of levels of the tree, including the root
+     * @return employeeId of the root of the tree
+     */
+    private String saveHierarchy(int fanOut, int depth) {
+        List<Employee> employees = new ArrayList<>();
+        Employee rootEmployee = generateSubtree(fanOut, depth, 0, employees);
+        employeeRepository.saveAll(employees);
+
+        return rootEmployee.getEmployeeId();
+    }
+
+    private static Employee generateSubtree(int fanOut, int depth, int level, List<Employee> employees) {
+        Employee employee = new Employee();
+        employee.setEmployeeId(UUID.randomUUID().toString());
+        employee.setFirstName("First" + employees.size());
+        employee.setLastName("Last" + employees.size());
+        employee.setPosition("Level " + level);
+        employee.setDepartment("Engineering");
+        employees.add(employee);
+
+        if (level < depth - 1) {
+            List<Employee> directReports = new ArrayList<>();
+            for (int i = 0; i < fanOut; i++) {
+                directReports.add(stub(generateSubtree(fanOut, depth, level + 1, employees).getEmployeeId()));
+            }
+            employee.setDirectReports(directReports);
+        }
+
+        return employee;
+    }
+
+    private static Employee stub(String employeeId) {
+        Employee employee = new Employee();
+        employee.setEmployeeId(employeeId);
+        return employee;
+    }
+
+    private static void assertEmployeeTreeEquivalence(Employee expected, Employee actual) {
+        assertEquals(expected.getEmployeeId(), actual.getEmployeeId());
+        assertEquals(expected.getFirstName(), actual.getFirstName());
+        assertEquals(expected.getLastName(), actual.getLastName());
+        assertEquals(expected.getDepartment(), actual.getDepartment());
+        assertEquals(expected.getPosition(), actual.getPosition());
+
+        List<Employee> expectedReports = expected.getDirectReports();
+        List<Employee> actualReports = actual.getDirectReports();
+        if (expectedReports == null || actualReports == null) {
+            assertEquals(expectedReports, actualReports);
+            return;
+        }
+
+        assertEquals(expectedReports.size(), actualReports.size());
+        for (int i = 0; i < expectedReports.size(); i++) {
+            assertEmployeeTreeEquivalence(expectedReports.get(i), actualReports.get(i));
+        }
+    }
+}